@@ -17,4 +17,6 @@ dependencies {
 
 tasks.test {
     useJUnitPlatform()
+    // Каждое изменение заказа в тестах сверяется с полным пересчетом
+    systemProperty("pizzeria.order.verifyTotals", "true")
 }
\ No newline at end of file
@@ -5,6 +5,7 @@ import org.pizzeria.domain.common.DoughType;
 import org.pizzeria.domain.common.Money;
 import org.pizzeria.domain.common.PizzaSize;
 import org.pizzeria.domain.menu.Pizza;
+import org.pizzeria.domain.menu.PizzaPricing;
 import org.pizzeria.domain.menu.Topping;
 
 import java.util.ArrayList;
@@ -95,6 +96,13 @@ public class PizzaBuilder {
         return this;
     }
 
+    /**
+     * Добавляет топпинг из канонического ингредиента с указанным названием
+     */
+    public PizzaBuilder addTopping(String ingredientName, double price) {
+        return addTopping(new Topping(ingredientName, Money.of(price)));
+    }
+
     /**
      * Удаляет топпинг
      */
@@ -129,6 +137,16 @@ public class PizzaBuilder {
         return withBasePrice(Money.of(basePrice));
     }
 
+    /**
+     * Рассчитывает цену пиццы по текущим настройкам, не создавая ее
+     */
+    public Money previewPrice() {
+        if (basePrice == null) {
+            throw new IllegalStateException("Base price is required");
+        }
+        return PizzaPricing.price(basePrice, size, doughType, toppings);
+    }
+
     /**
      * Создает объект пиццы
      */
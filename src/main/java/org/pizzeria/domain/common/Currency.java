@@ -0,0 +1,74 @@
+package org.pizzeria.domain.common;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Валюты ISO 4217, с которыми работает пиццерия.
+ * Каждая валюта существует в единственном экземпляре, поэтому
+ * сравнение валют - это сравнение ссылок.
+ */
+public enum Currency {
+    USD("USD", 2),
+    EUR("EUR", 2),
+    GBP("GBP", 2),
+    BYN("BYN", 2),
+    PLN("PLN", 2),
+    JPY("JPY", 0);
+
+    private static final Map<String, Currency> BY_CODE = new HashMap<>();
+
+    static {
+        for (Currency currency : values()) {
+            BY_CODE.put(currency.code, currency);
+        }
+    }
+
+    private final String code;
+    private final int minorUnitDigits;
+    private final long minorUnitsPerMajor;
+
+    Currency(String code, int minorUnitDigits) {
+        this.code = code;
+        this.minorUnitDigits = minorUnitDigits;
+        long factor = 1;
+        for (int i = 0; i < minorUnitDigits; i++) {
+            factor *= 10;
+        }
+        this.minorUnitsPerMajor = factor;
+    }
+
+    public String getCode() {
+        return code;
+    }
+
+    /**
+     * Количество знаков после запятой (2 для центов, 0 для иены)
+     */
+    public int getMinorUnitDigits() {
+        return minorUnitDigits;
+    }
+
+    public long getMinorUnitsPerMajor() {
+        return minorUnitsPerMajor;
+    }
+
+    /**
+     * Находит валюту по коду ISO 4217
+     */
+    public static Currency of(String code) {
+        if (code == null) {
+            throw new IllegalArgumentException("Currency code cannot be null");
+        }
+        Currency currency = BY_CODE.get(code.trim().toUpperCase());
+        if (currency == null) {
+            throw new IllegalArgumentException("Unsupported currency: " + code);
+        }
+        return currency;
+    }
+
+    @Override
+    public String toString() {
+        return code;
+    }
+}
@@ -2,128 +2,205 @@ package org.pizzeria.domain.common;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
-import java.util.Objects;
 
 /**
  * Value Object для представления денежных сумм.
  * Immutable класс для избежания проблем с изменяемостью.
- * 
- * Использует BigDecimal для точных вычислений с деньгами.
+ *
+ * Сумма хранится как long в минимальных единицах валюты (центах): сложение,
+ * вычитание и сравнения выполняются без аллокаций, с контролем переполнения.
+ * BigDecimal создается только на границе API (getAmount, конструктор)
+ * и в редких случаях умножения на дробный множитель.
+ * Округление - HALF_UP до числа знаков валюты (2 для USD/EUR).
+ * Валюта - каноничный Currency, проверка совпадения валют - сравнение ссылок.
  */
 public class Money {
-    private final BigDecimal amount;
-    private final String currency;
+    // Множители до этого порога точно представимы в double и не переполняют long
+    private static final double EXACT_FACTOR_LIMIT = 1e15;
+    // До этого значения p/100.0 дает в BigDecimal.valueOf ровно p/100
+    private static final int EXACT_PERCENT_LIMIT = 100_000;
 
-    public Money(BigDecimal amount, String currency) {
+    private final long cents;
+    private final Currency currency;
+
+    public Money(BigDecimal amount, Currency currency) {
         if (amount == null) {
             throw new IllegalArgumentException("Amount cannot be null");
         }
         if (amount.compareTo(BigDecimal.ZERO) < 0) {
             throw new IllegalArgumentException("Amount cannot be negative");
         }
-        this.amount = amount.setScale(2, RoundingMode.HALF_UP);
-        this.currency = currency != null ? currency : "USD";
+        this.currency = currency != null ? currency : Currency.USD;
+        this.cents = amount.setScale(this.currency.getMinorUnitDigits(), RoundingMode.HALF_UP)
+            .unscaledValue().longValueExact();
+    }
+
+    public Money(BigDecimal amount, String currency) {
+        this(amount, currency != null ? Currency.of(currency) : Currency.USD);
     }
 
     public Money(double amount) {
-        this(BigDecimal.valueOf(amount), "USD");
+        this(BigDecimal.valueOf(amount), Currency.USD);
     }
 
     public Money(String amount) {
-        this(new BigDecimal(amount), "USD");
+        this(new BigDecimal(amount), Currency.USD);
+    }
+
+    private Money(long cents, Currency currency) {
+        if (cents < 0) {
+            throw new IllegalArgumentException("Amount cannot be negative");
+        }
+        this.cents = cents;
+        this.currency = currency;
     }
 
     public BigDecimal getAmount() {
-        return amount;
+        return BigDecimal.valueOf(cents, currency.getMinorUnitDigits());
     }
 
+    /**
+     * Возвращает сумму в минимальных единицах (центах)
+     */
+    public long getMinorUnits() {
+        return cents;
+    }
+
+    /**
+     * Код валюты ISO 4217 (как до перехода на Currency)
+     */
     public String getCurrency() {
+        return currency.getCode();
+    }
+
+    /**
+     * Валюта суммы; сравнивать можно по ссылке
+     */
+    public Currency getCurrencyUnit() {
         return currency;
     }
 
     // Арифметические операции (возвращают новый объект - immutable)
     public Money add(Money other) {
         validateCurrency(other);
-        return new Money(this.amount.add(other.amount), this.currency);
+        return new Money(Math.addExact(this.cents, other.cents), this.currency);
     }
 
     public Money subtract(Money other) {
         validateCurrency(other);
-        BigDecimal result = this.amount.subtract(other.amount);
-        if (result.compareTo(BigDecimal.ZERO) < 0) {
+        long result = Math.subtractExact(this.cents, other.cents);
+        if (result < 0) {
             throw new IllegalArgumentException("Result cannot be negative");
         }
         return new Money(result, this.currency);
     }
 
+    public Money multiply(int multiplier) {
+        return new Money(Math.multiplyExact(this.cents, (long) multiplier), this.currency);
+    }
+
     public Money multiply(double multiplier) {
-        return new Money(this.amount.multiply(BigDecimal.valueOf(multiplier)), this.currency);
+        if (isExactFactor(multiplier)) {
+            return new Money(Math.multiplyExact(this.cents, (long) multiplier), this.currency);
+        }
+        return new Money(getAmount().multiply(BigDecimal.valueOf(multiplier)), this.currency);
     }
 
     public Money multiply(BigDecimal multiplier) {
-        return new Money(this.amount.multiply(multiplier), this.currency);
+        return new Money(getAmount().multiply(multiplier), this.currency);
     }
 
     public Money divide(double divisor) {
         if (divisor == 0) {
             throw new IllegalArgumentException("Cannot divide by zero");
         }
-        return new Money(this.amount.divide(BigDecimal.valueOf(divisor), 2, RoundingMode.HALF_UP), this.currency);
+        if (divisor > 0 && isExactFactor(divisor)) {
+            return new Money(divideHalfUp(this.cents, (long) divisor), this.currency);
+        }
+        return new Money(getAmount().divide(BigDecimal.valueOf(divisor), currency.getMinorUnitDigits(), RoundingMode.HALF_UP), this.currency);
     }
 
     public Money percentage(int percent) {
+        if (percent >= 0 && percent <= EXACT_PERCENT_LIMIT) {
+            return new Money(divideHalfUp(Math.multiplyExact(this.cents, (long) percent), 100), this.currency);
+        }
         return multiply(percent / 100.0);
     }
 
     public boolean isGreaterThan(Money other) {
         validateCurrency(other);
-        return this.amount.compareTo(other.amount) > 0;
+        return this.cents > other.cents;
     }
 
     public boolean isLessThan(Money other) {
         validateCurrency(other);
-        return this.amount.compareTo(other.amount) < 0;
+        return this.cents < other.cents;
     }
 
     public boolean isGreaterThanOrEqual(Money other) {
         validateCurrency(other);
-        return this.amount.compareTo(other.amount) >= 0;
+        return this.cents >= other.cents;
     }
 
     public boolean isZero() {
-        return this.amount.compareTo(BigDecimal.ZERO) == 0;
+        return this.cents == 0;
     }
 
     private void validateCurrency(Money other) {
-        if (!this.currency.equals(other.currency)) {
+        if (this.currency != other.currency) {
             throw new IllegalArgumentException(
                 String.format("Currency mismatch: %s vs %s", this.currency, other.currency)
             );
         }
     }
 
+    /**
+     * Проверяет, что множитель - целое число, которое можно применить к центам напрямую
+     */
+    private static boolean isExactFactor(double factor) {
+        return factor == (long) factor && Math.abs(factor) < EXACT_FACTOR_LIMIT;
+    }
+
+    /**
+     * Деление неотрицательного числа с округлением HALF_UP
+     */
+    private static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (remainder >= divisor - remainder) {
+            quotient++;
+        }
+        return quotient;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Money money = (Money) o;
-        return amount.compareTo(money.amount) == 0 && 
-               Objects.equals(currency, money.currency);
+        return cents == money.cents && currency == money.currency;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(amount, currency);
+        return 31 * Long.hashCode(cents) + currency.hashCode();
     }
 
     @Override
     public String toString() {
-        return String.format("%s %.2f", currency, amount);
+        return currency.getCode() + " " + getAmount().toPlainString();
     }
 
     // Статические фабричные методы
     public static Money zero() {
-        return new Money(BigDecimal.ZERO, "USD");
+        return new Money(0L, Currency.USD);
+    }
+
+    public static Money zero(Currency currency) {
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
+        return new Money(0L, currency);
     }
 
     public static Money of(double amount) {
@@ -131,6 +208,24 @@ public class Money {
     }
 
     public static Money of(BigDecimal amount) {
-        return new Money(amount, "USD");
+        return new Money(amount, Currency.USD);
+    }
+
+    public static Money of(BigDecimal amount, Currency currency) {
+        return new Money(amount, currency);
+    }
+
+    /**
+     * Создает сумму из минимальных единиц (центов) без промежуточного BigDecimal
+     */
+    public static Money ofMinorUnits(long cents) {
+        return new Money(cents, Currency.USD);
+    }
+
+    public static Money ofMinorUnits(long minorUnits, Currency currency) {
+        if (currency == null) {
+            throw new IllegalArgumentException("Currency cannot be null");
+        }
+        return new Money(minorUnits, currency);
     }
-}
\ No newline at end of file
+}
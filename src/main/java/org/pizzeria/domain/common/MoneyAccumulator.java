@@ -0,0 +1,149 @@
+package org.pizzeria.domain.common;
+
+import java.util.stream.Collector;
+
+/**
+ * Изменяемый накопитель денежных сумм для массовых свёрток.
+ * Считает сумму, количество, минимум и максимум в минимальных единицах
+ * без создания промежуточных Money на каждом шаге.
+ *
+ * Не потокобезопасен: в параллельных стримах и fork-join задачах
+ * у каждой ветки свой накопитель, результаты объединяются через merge.
+ */
+public class MoneyAccumulator {
+    private final Currency fixedCurrency; // задана при создании; null - определяется по первой сумме
+    private Currency currency;
+    private long sum;
+    private long count;
+    private long min;
+    private long max;
+
+    public MoneyAccumulator() {
+        this(null);
+    }
+
+    public MoneyAccumulator(Currency currency) {
+        this.fixedCurrency = currency;
+        this.currency = currency;
+        this.min = Long.MAX_VALUE;
+        this.max = Long.MIN_VALUE;
+    }
+
+    /**
+     * Добавляет сумму
+     */
+    public MoneyAccumulator add(Money money) {
+        if (money == null) {
+            throw new IllegalArgumentException("Money cannot be null");
+        }
+        acceptCurrency(money.getCurrencyUnit());
+        long value = money.getMinorUnits();
+        sum = Math.addExact(sum, value);
+        count++;
+        if (value < min) {
+            min = value;
+        }
+        if (value > max) {
+            max = value;
+        }
+        return this;
+    }
+
+    /**
+     * Объединяет с другим накопителем (combiner для параллельных свёрток)
+     */
+    public MoneyAccumulator merge(MoneyAccumulator other) {
+        if (other == null || other.count == 0) {
+            return this;
+        }
+        acceptCurrency(other.currency);
+        sum = Math.addExact(sum, other.sum);
+        count += other.count;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        return this;
+    }
+
+    public Money getSum() {
+        return Money.ofMinorUnits(sum, currencyOrDefault());
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Минимальная сумма (ноль, если ничего не накоплено)
+     */
+    public Money getMin() {
+        return Money.ofMinorUnits(count == 0 ? 0 : min, currencyOrDefault());
+    }
+
+    /**
+     * Максимальная сумма (ноль, если ничего не накоплено)
+     */
+    public Money getMax() {
+        return Money.ofMinorUnits(count == 0 ? 0 : max, currencyOrDefault());
+    }
+
+    /**
+     * Среднее значение, округленное HALF_UP (ноль, если ничего не накоплено)
+     */
+    public Money getAverage() {
+        if (count == 0) {
+            return Money.zero(currencyOrDefault());
+        }
+        return getSum().divide(count);
+    }
+
+    /**
+     * Очищает накопитель; валюта, определенная по суммам, тоже сбрасывается
+     */
+    public void reset() {
+        currency = fixedCurrency;
+        sum = 0;
+        count = 0;
+        min = Long.MAX_VALUE;
+        max = Long.MIN_VALUE;
+    }
+
+    private void acceptCurrency(Currency other) {
+        if (currency == null) {
+            currency = other;
+        } else if (currency != other) {
+            throw new IllegalArgumentException(
+                String.format("Currency mismatch: %s vs %s", currency, other)
+            );
+        }
+    }
+
+    private Currency currencyOrDefault() {
+        return currency != null ? currency : Currency.USD;
+    }
+
+    /**
+     * Коллектор, накапливающий суммы (подходит для параллельных стримов)
+     */
+    public static Collector<Money, MoneyAccumulator, MoneyAccumulator> collector() {
+        return Collector.of(MoneyAccumulator::new, MoneyAccumulator::add, MoneyAccumulator::merge,
+            Collector.Characteristics.IDENTITY_FINISH, Collector.Characteristics.UNORDERED);
+    }
+
+    /**
+     * Коллектор, возвращающий итоговую сумму
+     */
+    public static Collector<Money, MoneyAccumulator, Money> summing() {
+        return Collector.of(MoneyAccumulator::new, MoneyAccumulator::add, MoneyAccumulator::merge,
+            MoneyAccumulator::getSum, Collector.Characteristics.UNORDERED);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MoneyAccumulator{sum=%s, count=%d, min=%s, max=%s}",
+            getSum(), count, getMin(), getMax());
+    }
+}
@@ -1,7 +1,11 @@
 package org.pizzeria.domain.common;
 
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
- * Статус заказа (для State Pattern)
+ * Статус заказа (для State Pattern).
+ * Допустимые переходы между статусами заданы битовой таблицей.
  */
 public enum OrderStatus {
     DRAFT("Draft", "Order is being created"),
@@ -15,6 +19,28 @@ public enum OrderStatus {
     COMPLETED("Completed", "Order completed"),
     CANCELLED("Cancelled", "Order cancelled");
 
+    // TRANSITIONS[from.ordinal()] - битовая маска статусов, в которые можно перейти
+    private static final int[] TRANSITIONS = new int[values().length];
+
+    static {
+        allow(DRAFT, PENDING_PAYMENT, CONFIRMED, CANCELLED);
+        allow(PENDING_PAYMENT, PAID, CONFIRMED, CANCELLED);
+        allow(PAID, CONFIRMED, CANCELLED);
+        allow(CONFIRMED, PREPARING, CANCELLED);
+        allow(PREPARING, READY);
+        allow(READY, OUT_FOR_DELIVERY, COMPLETED);
+        allow(OUT_FOR_DELIVERY, DELIVERED);
+        allow(DELIVERED, COMPLETED);
+    }
+
+    private static void allow(OrderStatus from, OrderStatus... targets) {
+        int mask = 0;
+        for (OrderStatus target : targets) {
+            mask |= 1 << target.ordinal();
+        }
+        TRANSITIONS[from.ordinal()] = mask;
+    }
+
     private final String displayName;
     private final String description;
 
@@ -46,6 +72,26 @@ public enum OrderStatus {
                this == PAID || this == CONFIRMED;
     }
 
+    /**
+     * Проверяет, разрешен ли переход из этого статуса в указанный
+     */
+    public boolean canTransitionTo(OrderStatus next) {
+        return next != null && (TRANSITIONS[ordinal()] & (1 << next.ordinal())) != 0;
+    }
+
+    /**
+     * Возвращает все статусы, в которые можно перейти из этого
+     */
+    public Set<OrderStatus> getAllowedTransitions() {
+        EnumSet<OrderStatus> result = EnumSet.noneOf(OrderStatus.class);
+        for (OrderStatus candidate : values()) {
+            if (canTransitionTo(candidate)) {
+                result.add(candidate);
+            }
+        }
+        return result;
+    }
+
     /**
      * Проверяет, является ли статус финальным
      */
@@ -0,0 +1,72 @@
+package org.pizzeria.domain.menu;
+
+/**
+ * Состав позиций меню в ингредиентах (bill of materials).
+ * Состав позиции - плотный вектор количеств, индекс - порядковый номер
+ * ингредиента в IngredientRegistry. Вектор пиццы рассчитывается один раз
+ * и кешируется до изменения топпингов; у напитков и десертов рецептуры нет.
+ *
+ * Потребность заказа собирается сложением векторов в цикле без ветвлений,
+ * который JIT может векторизовать.
+ */
+public final class BillOfMaterials {
+    private static final int[] EMPTY = new int[0];
+
+    private BillOfMaterials() {
+    }
+
+    /**
+     * Создает пустой вектор потребности на все зарегистрированные ингредиенты
+     */
+    public static int[] newDemandVector() {
+        return new int[IngredientRegistry.size()];
+    }
+
+    /**
+     * Возвращает копию вектора количеств ингредиентов на одну порцию позиции.
+     * Длина вектора может быть меньше числа ингредиентов: недостающие - нули.
+     */
+    public static int[] quantitiesOf(MenuItem item) {
+        return vectorOf(item).clone();
+    }
+
+    /**
+     * Прибавляет к demand состав позиции, умноженный на quantity
+     *
+     * @param demand вектор длиной не меньше IngredientRegistry.size() на момент создания позиции
+     */
+    public static void addTo(int[] demand, MenuItem item, int quantity) {
+        int[] vector = vectorOf(item);
+        if (vector.length > demand.length) {
+            throw new IllegalArgumentException("Demand vector is shorter than ingredient registry");
+        }
+        for (int i = 0; i < vector.length; i++) {
+            demand[i] += vector[i] * quantity;
+        }
+    }
+
+    /**
+     * Строит вектор по массиву номеров топпингов: каждый топпинг - одна единица ингредиента
+     */
+    static int[] build(short[] toppingCodes) {
+        if (toppingCodes.length == 0) {
+            return EMPTY;
+        }
+        int[] ingredients = new int[toppingCodes.length];
+        int length = 0;
+        for (int i = 0; i < toppingCodes.length; i++) {
+            ingredients[i] = ToppingRegistry.byOrdinal(toppingCodes[i]).getIngredient().getOrdinal();
+            length = Math.max(length, ingredients[i] + 1);
+        }
+        int[] vector = new int[length];
+        for (int ingredient : ingredients) {
+            vector[ingredient]++;
+        }
+        return vector;
+    }
+
+    // Общий кешированный вектор - изменять нельзя
+    private static int[] vectorOf(MenuItem item) {
+        return item instanceof Pizza ? ((Pizza) item).ingredientVector() : EMPTY;
+    }
+}
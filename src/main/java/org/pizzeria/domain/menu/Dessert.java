@@ -87,6 +87,14 @@ public class Dessert implements MenuItem {
         this.available = available;
     }
 
+    @Override
+    public Dessert revise(Money price, boolean available) {
+        Dessert copy = new Dessert(id, name, weightGrams, price != null ? price : this.price);
+        copy.description = description;
+        copy.available = available;
+        return copy;
+    }
+
     @Override
     public String toString() {
         return String.format("%s (%dg) - %s", name, weightGrams, price);
@@ -107,6 +107,15 @@ public class Drink implements MenuItem {
         this.available = available;
     }
 
+    @Override
+    public Drink revise(Money price, boolean available) {
+        Drink copy = new Drink(id, name, volumeMl, price != null ? price : this.price);
+        copy.description = description;
+        copy.isCarbonated = isCarbonated;
+        copy.available = available;
+        return copy;
+    }
+
     public boolean isCarbonated() {
         return isCarbonated;
     }
@@ -5,12 +5,15 @@ import java.util.UUID;
 
 /**
  * Ингредиент для пиццы.
+ * Канонические экземпляры выдает IngredientRegistry.
  */
 public class Ingredient {
     private final String id;
     private final String name;
     private double pricePerUnit;
-    private int stockQuantity;
+    private int stockQuantity; // только до регистрации, затем запас ведет InventoryLedger
+    private int lowStockThreshold = InventoryLedger.NO_THRESHOLD; // так же, как stockQuantity
+    private volatile int ordinal = -1; // номер в IngredientRegistry, -1 - не зарегистрирован
 
     public Ingredient(String name, double pricePerUnit) {
         if (name == null || name.trim().isEmpty()) {
@@ -37,6 +40,21 @@ public class Ingredient {
         return name;
     }
 
+    /**
+     * Порядковый номер в IngredientRegistry (-1, если ингредиент не зарегистрирован)
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public boolean isRegistered() {
+        return ordinal >= 0;
+    }
+
+    void assignOrdinal(int ordinal) {
+        this.ordinal = ordinal;
+    }
+
     public double getPricePerUnit() {
         return pricePerUnit;
     }
@@ -48,29 +66,87 @@ public class Ingredient {
         this.pricePerUnit = pricePerUnit;
     }
 
+    /**
+     * Текущий запас; для зарегистрированного ингредиента берется из InventoryLedger
+     */
     public int getStockQuantity() {
+        int ledgerOrdinal = ordinal;
+        return ledgerOrdinal >= 0 ? InventoryLedger.getStock(ledgerOrdinal) : stockQuantity;
+    }
+
+    /**
+     * Начальный запас для ячейки InventoryLedger при регистрации
+     */
+    synchronized int getInitialStock() {
         return stockQuantity;
     }
 
+    synchronized int getInitialThreshold() {
+        return lowStockThreshold;
+    }
+
+    /**
+     * Порог низкого запаса (InventoryLedger.NO_THRESHOLD, если не задан)
+     */
+    public int getLowStockThreshold() {
+        int ledgerOrdinal = ordinal;
+        if (ledgerOrdinal >= 0) {
+            return InventoryLedger.getLowStockThreshold(ledgerOrdinal);
+        }
+        synchronized (this) {
+            return lowStockThreshold;
+        }
+    }
+
+    public void setLowStockThreshold(int threshold) {
+        if (threshold < InventoryLedger.NO_THRESHOLD) {
+            throw new IllegalArgumentException("Threshold cannot be negative");
+        }
+        int ledgerOrdinal = ordinal;
+        if (ledgerOrdinal >= 0) {
+            InventoryLedger.setLowStockThreshold(ledgerOrdinal, threshold);
+            return;
+        }
+        synchronized (this) {
+            this.lowStockThreshold = threshold;
+        }
+    }
+
     public void addStock(int quantity) {
         if (quantity < 0) {
             throw new IllegalArgumentException("Quantity cannot be negative");
         }
-        this.stockQuantity += quantity;
+        int ledgerOrdinal = ordinal;
+        if (ledgerOrdinal >= 0) {
+            InventoryLedger.add(ledgerOrdinal, quantity);
+            return;
+        }
+        synchronized (this) {
+            this.stockQuantity += quantity;
+        }
     }
 
     public void useStock(int quantity) {
         if (quantity < 0) {
             throw new IllegalArgumentException("Quantity cannot be negative");
         }
-        if (quantity > stockQuantity) {
-            throw new IllegalArgumentException("Not enough stock");
+        int ledgerOrdinal = ordinal;
+        if (ledgerOrdinal >= 0) {
+            if (!InventoryLedger.tryConsume(ledgerOrdinal, quantity)) {
+                throw new IllegalArgumentException("Not enough stock");
+            }
+            return;
+        }
+        synchronized (this) {
+            if (quantity > stockQuantity) {
+                throw new IllegalArgumentException("Not enough stock");
+            }
+            this.stockQuantity -= quantity;
         }
-        this.stockQuantity -= quantity;
     }
 
     public boolean isInStock() {
-        return stockQuantity > 0;
+        return getStockQuantity() > 0;
     }
 
     @Override
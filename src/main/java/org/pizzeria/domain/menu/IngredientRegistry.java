@@ -0,0 +1,172 @@
+package org.pizzeria.domain.menu;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Реестр канонических ингредиентов (паттерн Flyweight).
+ * Для каждого названия существует ровно один экземпляр Ingredient,
+ * общий для рецептов, топпингов и учета запасов.
+ *
+ * Каждому зарегистрированному ингредиенту выдается компактный порядковый
+ * номер (0, 1, 2, ...) для индексации в массивах.
+ *
+ * Слушатели StockListener получают уведомления, когда зарегистрированный
+ * ингредиент заканчивается или снова появляется на складе, слушатели
+ * LowStockListener - когда его запас опускается до порога.
+ */
+public final class IngredientRegistry {
+    private static final Map<String, Ingredient> byName = new ConcurrentHashMap<>();
+    private static volatile Ingredient[] byOrdinal = new Ingredient[0];
+    private static final List<StockListener> stockListeners = new CopyOnWriteArrayList<>();
+    private static final List<LowStockListener> lowStockListeners = new CopyOnWriteArrayList<>();
+
+    private IngredientRegistry() {
+    }
+
+    /**
+     * Возвращает канонический ингредиент с указанным названием, создавая его при необходимости
+     */
+    public static Ingredient intern(String name) {
+        return intern(name, 0.0);
+    }
+
+    /**
+     * Возвращает канонический ингредиент с указанным названием, создавая его при необходимости.
+     * Цена используется только при создании нового ингредиента.
+     */
+    public static Ingredient intern(String name, double pricePerUnit) {
+        if (name == null || name.trim().isEmpty()) {
+            throw new IllegalArgumentException("Ingredient name cannot be empty");
+        }
+        Ingredient existing = byName.get(key(name));
+        if (existing != null) {
+            return existing;
+        }
+        return register(new Ingredient(name, pricePerUnit));
+    }
+
+    /**
+     * Возвращает канонический экземпляр для ингредиента с таким же названием.
+     * Если название еще не зарегистрировано, каноническим становится сам ингредиент.
+     */
+    public static Ingredient intern(Ingredient ingredient) {
+        if (ingredient == null) {
+            throw new IllegalArgumentException("Ingredient cannot be null");
+        }
+        if (ingredient.isRegistered()) {
+            return ingredient;
+        }
+        Ingredient existing = byName.get(key(ingredient.getName()));
+        if (existing != null) {
+            return existing;
+        }
+        return register(ingredient);
+    }
+
+    public static Optional<Ingredient> find(String name) {
+        if (name == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byName.get(key(name)));
+    }
+
+    /**
+     * Возвращает ингредиент по порядковому номеру
+     */
+    public static Ingredient byOrdinal(int ordinal) {
+        Ingredient[] snapshot = byOrdinal;
+        if (ordinal < 0 || ordinal >= snapshot.length) {
+            throw new IllegalArgumentException("Unknown ingredient ordinal: " + ordinal);
+        }
+        return snapshot[ordinal];
+    }
+
+    /**
+     * Количество зарегистрированных ингредиентов (все порядковые номера меньше этого значения)
+     */
+    public static int size() {
+        return byOrdinal.length;
+    }
+
+    public static List<Ingredient> getAll() {
+        return List.of(byOrdinal);
+    }
+
+    public static void addStockListener(StockListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        stockListeners.add(listener);
+    }
+
+    public static void removeStockListener(StockListener listener) {
+        stockListeners.remove(listener);
+    }
+
+    /**
+     * Уведомляет слушателей об изменении наличия ингредиента
+     */
+    static void fireStockChanged(Ingredient ingredient, boolean inStock) {
+        if (!ingredient.isRegistered()) {
+            return;
+        }
+        for (StockListener listener : stockListeners) {
+            try {
+                listener.stockChanged(ingredient, inStock);
+            } catch (Exception e) {
+                System.err.println("Error notifying stock listener: " + e.getMessage());
+            }
+        }
+    }
+
+    public static void addLowStockListener(LowStockListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        lowStockListeners.add(listener);
+    }
+
+    public static void removeLowStockListener(LowStockListener listener) {
+        lowStockListeners.remove(listener);
+    }
+
+    /**
+     * Уведомляет слушателей о снижении запаса ингредиента до порога
+     */
+    static void fireLowStock(Ingredient ingredient, int remaining, int threshold) {
+        for (LowStockListener listener : lowStockListeners) {
+            try {
+                listener.lowStock(ingredient, remaining, threshold);
+            } catch (Exception e) {
+                System.err.println("Error notifying low stock listener: " + e.getMessage());
+            }
+        }
+    }
+
+    private static synchronized Ingredient register(Ingredient ingredient) {
+        String key = key(ingredient.getName());
+        Ingredient existing = byName.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        Ingredient[] current = byOrdinal;
+        Ingredient[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = ingredient;
+        // Ячейка склада заводится до публикации номера
+        InventoryLedger.initialize(current.length, ingredient.getInitialStock(), ingredient.getInitialThreshold());
+        byOrdinal = updated;
+        ingredient.assignOrdinal(current.length);
+        byName.put(key, ingredient);
+        return ingredient;
+    }
+
+    private static String key(String name) {
+        return name.trim().toLowerCase(Locale.ROOT);
+    }
+}
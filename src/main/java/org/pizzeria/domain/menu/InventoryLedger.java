@@ -0,0 +1,281 @@
+package org.pizzeria.domain.menu;
+
+import org.pizzeria.exception.OutOfStockException;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Складской учет ингредиентов.
+ * Запас каждого зарегистрированного ингредиента хранится в примитивной ячейке
+ * по его порядковому номеру и изменяется через CAS, поэтому параллельные
+ * заказы не теряют обновлений и не продают больше, чем есть.
+ *
+ * Ячейки разнесены на 64 байта, чтобы потоки, работающие с разными
+ * ингредиентами, не мешали друг другу (false sharing). Массив растет блоками;
+ * существующие блоки при росте не копируются, поэтому рост не теряет обновлений.
+ *
+ * Списание нескольких ингредиентов выполняется по принципу "все или ничего":
+ * сначала проверяются все запасы, затем они списываются в фиксированном порядке.
+ *
+ * Рядом с запасом в той же ячейке хранится порог низкого запаса. Порог
+ * проверяется при каждом списании одним чтением из уже загруженной строки
+ * кеша; слушатели LowStockListener вызываются только при его пересечении.
+ */
+public final class InventoryLedger {
+    private static final int STRIDE = 16; // 16 int = 64 байта на ингредиент
+    private static final int CHUNK_SHIFT = 6;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT; // ингредиентов в блоке
+    private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+    private static final int THRESHOLD = 1; // смещение порога внутри ячейки
+    public static final int NO_THRESHOLD = -1;
+
+    private static volatile AtomicIntegerArray[] chunks = new AtomicIntegerArray[0];
+
+    private InventoryLedger() {
+    }
+
+    /**
+     * Заводит ячейку для нового ингредиента (вызывается IngredientRegistry
+     * до того, как номер ингредиента станет виден другим потокам)
+     */
+    static synchronized void initialize(int ordinal, int quantity, int threshold) {
+        int chunk = ordinal >>> CHUNK_SHIFT;
+        AtomicIntegerArray[] current = chunks;
+        if (chunk >= current.length) {
+            AtomicIntegerArray[] updated = Arrays.copyOf(current, chunk + 1);
+            for (int i = current.length; i < updated.length; i++) {
+                updated[i] = new AtomicIntegerArray(CHUNK_SIZE * STRIDE);
+            }
+            chunks = updated;
+        }
+        chunks[chunk].set(offset(ordinal) + THRESHOLD, threshold);
+        chunks[chunk].set(offset(ordinal), quantity);
+    }
+
+    /**
+     * Текущий запас ингредиента
+     */
+    public static int getStock(int ordinal) {
+        return chunk(ordinal).get(offset(ordinal));
+    }
+
+    /**
+     * Порог низкого запаса (NO_THRESHOLD, если не задан)
+     */
+    public static int getLowStockThreshold(int ordinal) {
+        return chunk(ordinal).get(offset(ordinal) + THRESHOLD);
+    }
+
+    /**
+     * Задает порог: слушатели узнают, когда запас опустится до него или ниже
+     *
+     * @param threshold порог или NO_THRESHOLD, чтобы отключить проверку
+     */
+    public static void setLowStockThreshold(int ordinal, int threshold) {
+        if (threshold < NO_THRESHOLD) {
+            throw new IllegalArgumentException("Threshold cannot be negative");
+        }
+        chunk(ordinal).set(offset(ordinal) + THRESHOLD, threshold);
+    }
+
+    /**
+     * Пополняет запас и возвращает новое значение
+     */
+    public static int add(int ordinal, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+        AtomicIntegerArray cells = chunk(ordinal);
+        int offset = offset(ordinal);
+        int previous;
+        int next;
+        do {
+            previous = cells.get(offset);
+            next = Math.addExact(previous, quantity);
+        } while (!cells.compareAndSet(offset, previous, next));
+        if (previous <= 0 && next > 0) {
+            IngredientRegistry.fireStockChanged(IngredientRegistry.byOrdinal(ordinal), true);
+        }
+        return next;
+    }
+
+    /**
+     * Списывает запас, если его хватает
+     *
+     * @return false, если запаса недостаточно (запас не изменяется)
+     */
+    public static boolean tryConsume(int ordinal, int quantity) {
+        int remaining = decrement(ordinal, quantity);
+        if (remaining < 0) {
+            return false;
+        }
+        consumed(ordinal, remaining, quantity);
+        return true;
+    }
+
+    public static void consume(int ordinal, int quantity) throws OutOfStockException {
+        if (!tryConsume(ordinal, quantity)) {
+            throw new OutOfStockException(IngredientRegistry.byOrdinal(ordinal).getName());
+        }
+    }
+
+    /**
+     * Списывает несколько ингредиентов по принципу "все или ничего".
+     *
+     * Сначала проверяется, что хватает всех ингредиентов, и только потом
+     * запасы уменьшаются по возрастанию номеров. Поэтому нехватка одного
+     * ингредиента не трогает остальные и другие потоки не видят временно
+     * уменьшенный запас. Если между проверкой и списанием запас забрал другой
+     * поток, списанное возвращается и попытка повторяется с новой проверки.
+     * Полной изоляции нет: в этом узком окне параллельное списание может
+     * увидеть запас, который сейчас будет возвращен.
+     *
+     * @param ordinals   порядковые номера ингредиентов (повторы суммируются)
+     * @param quantities количества (тот же порядок)
+     * @throws OutOfStockException если хотя бы одного ингредиента не хватает;
+     *                             в этом случае запасы не изменяются
+     */
+    public static void consumeAll(int[] ordinals, int[] quantities) throws OutOfStockException {
+        if (ordinals.length != quantities.length) {
+            throw new IllegalArgumentException("Ordinals and quantities must have the same length");
+        }
+        int[][] merged = mergeByOrdinal(ordinals, quantities);
+        int[] sortedOrdinals = merged[0];
+        int[] sortedQuantities = merged[1];
+        int[] remaining = new int[sortedOrdinals.length];
+        while (true) {
+            for (int i = 0; i < sortedOrdinals.length; i++) {
+                if (getStock(sortedOrdinals[i]) < sortedQuantities[i]) {
+                    throw new OutOfStockException(IngredientRegistry.byOrdinal(sortedOrdinals[i]).getName());
+                }
+            }
+            int failed = -1;
+            for (int i = 0; i < sortedOrdinals.length; i++) {
+                remaining[i] = decrement(sortedOrdinals[i], sortedQuantities[i]);
+                if (remaining[i] < 0) {
+                    failed = i;
+                    break;
+                }
+            }
+            if (failed < 0) {
+                break;
+            }
+            // Запас забрали после проверки - возвращаем списанное и проверяем заново
+            for (int j = 0; j < failed; j++) {
+                restore(sortedOrdinals[j], sortedQuantities[j]);
+            }
+        }
+        for (int i = 0; i < sortedOrdinals.length; i++) {
+            consumed(sortedOrdinals[i], remaining[i], sortedQuantities[i]);
+        }
+    }
+
+    public static void consumeAll(Map<Ingredient, Integer> quantities) throws OutOfStockException {
+        int[] ordinals = new int[quantities.size()];
+        int[] amounts = new int[quantities.size()];
+        int i = 0;
+        for (Map.Entry<Ingredient, Integer> entry : quantities.entrySet()) {
+            ordinals[i] = IngredientRegistry.intern(entry.getKey()).getOrdinal();
+            amounts[i] = entry.getValue();
+            i++;
+        }
+        consumeAll(ordinals, amounts);
+    }
+
+    /**
+     * Возвращает ранее списанные количества на склад
+     */
+    public static void restoreAll(int[] ordinals, int[] quantities) {
+        for (int i = 0; i < ordinals.length; i++) {
+            add(ordinals[i], quantities[i]);
+        }
+    }
+
+    /**
+     * Сортирует позиции по номеру ингредиента и складывает количества повторов
+     */
+    private static int[][] mergeByOrdinal(int[] ordinals, int[] quantities) {
+        int[] sortedOrdinals = new int[ordinals.length];
+        int[] sortedQuantities = new int[ordinals.length];
+        int size = 0;
+        for (int i = 0; i < ordinals.length; i++) {
+            if (quantities[i] < 0) {
+                throw new IllegalArgumentException("Quantity cannot be negative");
+            }
+            int position = Arrays.binarySearch(sortedOrdinals, 0, size, ordinals[i]);
+            if (position >= 0) {
+                sortedQuantities[position] = Math.addExact(sortedQuantities[position], quantities[i]);
+                continue;
+            }
+            position = -position - 1;
+            System.arraycopy(sortedOrdinals, position, sortedOrdinals, position + 1, size - position);
+            System.arraycopy(sortedQuantities, position, sortedQuantities, position + 1, size - position);
+            sortedOrdinals[position] = ordinals[i];
+            sortedQuantities[position] = quantities[i];
+            size++;
+        }
+        return new int[][]{Arrays.copyOf(sortedOrdinals, size), Arrays.copyOf(sortedQuantities, size)};
+    }
+
+    /**
+     * CAS-списание; возвращает остаток или -1, если запаса не хватает
+     */
+    private static int decrement(int ordinal, int quantity) {
+        if (quantity < 0) {
+            throw new IllegalArgumentException("Quantity cannot be negative");
+        }
+        AtomicIntegerArray cells = chunk(ordinal);
+        int offset = offset(ordinal);
+        int current;
+        do {
+            current = cells.get(offset);
+            if (current < quantity) {
+                return -1;
+            }
+        } while (!cells.compareAndSet(offset, current, current - quantity));
+        return current - quantity;
+    }
+
+    /**
+     * Уведомления после успешного списания: пересечение порога и окончание запаса
+     */
+    private static void consumed(int ordinal, int remaining, int quantity) {
+        if (quantity == 0) {
+            return;
+        }
+        int threshold = chunk(ordinal).get(offset(ordinal) + THRESHOLD);
+        boolean crossed = remaining <= threshold && remaining + quantity > threshold;
+        if (!crossed && remaining != 0) {
+            return;
+        }
+        Ingredient ingredient = IngredientRegistry.byOrdinal(ordinal);
+        if (crossed) {
+            IngredientRegistry.fireLowStock(ingredient, remaining, threshold);
+        }
+        if (remaining == 0) {
+            IngredientRegistry.fireStockChanged(ingredient, false);
+        }
+    }
+
+    /**
+     * Возврат после отката: без уведомлений, запас до отката уже был доступен
+     */
+    private static void restore(int ordinal, int quantity) {
+        chunk(ordinal).addAndGet(offset(ordinal), quantity);
+    }
+
+    private static AtomicIntegerArray chunk(int ordinal) {
+        AtomicIntegerArray[] current = chunks;
+        int chunk = ordinal >>> CHUNK_SHIFT;
+        if (ordinal < 0 || chunk >= current.length) {
+            throw new IllegalArgumentException("Unknown ingredient ordinal: " + ordinal);
+        }
+        return current[chunk];
+    }
+
+    private static int offset(int ordinal) {
+        return (ordinal & CHUNK_MASK) * STRIDE;
+    }
+}
@@ -0,0 +1,11 @@
+package org.pizzeria.domain.menu;
+
+/**
+ * Слушатель снижения запаса ингредиента до порога.
+ * Вызывается в потоке, списавшем запас, только при пересечении порога
+ * сверху вниз, поэтому должен работать быстро.
+ */
+@FunctionalInterface
+public interface LowStockListener {
+    void lowStock(Ingredient ingredient, int remaining, int threshold);
+}
@@ -0,0 +1,231 @@
+package org.pizzeria.domain.menu;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Битовая карта доступности позиций меню.
+ * Каждой позиции выдается порядковый номер, доступность - бит с этим номером.
+ * Проверка доступности - чтение одного бита без блокировок. Номер позиции
+ * не меняется, пока она остается в меню; номера удаленных позиций
+ * освобождаются и выдаются новым, так что их число не превышает
+ * наибольшего размера меню.
+ *
+ * Для пицц заранее строится обратный индекс ингредиент -> позиции меню,
+ * поэтому когда ингредиент заканчивается, все зависящие от него позиции
+ * выключаются одной операцией над битовыми множествами, а при пополнении
+ * запаса включаются обратно.
+ *
+ * Опубликованная битовая карта вместе с таблицей номеров не изменяется:
+ * запись создает новую копию и подменяет ссылку.
+ *
+ * Пересчет запускают MenuCatalog при публикации меню и IngredientRegistry
+ * при изменении запасов.
+ */
+public class MenuAvailability implements StockListener {
+    private volatile State state = new State(new BitSet(), Map.of(), 0);
+
+    // Состояние для пересчета, изменяется только под this
+    private final List<String> idsByOrdinal = new ArrayList<>();
+    private final BitSet freeOrdinals = new BitSet();
+    private final BitSet enabled = new BitSet();
+    private final BitSet outOfStock = new BitSet();
+    private Map<Integer, BitSet> dependents = new HashMap<>();
+
+    /**
+     * Перестраивает карту по составу меню: ручная доступность позиций,
+     * обратный индекс ингредиентов и текущие запасы
+     */
+    public synchronized void rebuild(Collection<? extends MenuItem> items) {
+        enabled.clear();
+        outOfStock.clear();
+        Map<String, Integer> ordinals = assignOrdinals(items);
+        Map<Integer, BitSet> index = new HashMap<>();
+        for (MenuItem item : items) {
+            int ordinal = ordinals.get(item.getId());
+            if (item.isAvailable()) {
+                enabled.set(ordinal);
+            }
+            if (item instanceof Pizza) {
+                for (Topping topping : ((Pizza) item).getToppings()) {
+                    Ingredient ingredient = topping.getIngredient();
+                    index.computeIfAbsent(ingredient.getOrdinal(), k -> new BitSet()).set(ordinal);
+                    if (!ingredient.isInStock()) {
+                        outOfStock.set(ingredient.getOrdinal());
+                    }
+                }
+            }
+        }
+        dependents = index;
+        state = new State(recompute(), ordinals, state.version + 1);
+    }
+
+    /**
+     * Выключает или включает все позиции, зависящие от ингредиента
+     */
+    @Override
+    public synchronized void stockChanged(Ingredient ingredient, boolean inStock) {
+        int ingredientOrdinal = ingredient.getOrdinal();
+        BitSet items = dependents.get(ingredientOrdinal);
+        if (items == null) {
+            return;
+        }
+        // Уведомления могут прийти не по порядку - ориентируемся на фактический запас
+        if (!ingredient.isInStock()) {
+            if (outOfStock.get(ingredientOrdinal)) {
+                return;
+            }
+            outOfStock.set(ingredientOrdinal);
+            BitSet updated = (BitSet) state.bits.clone();
+            updated.andNot(items);
+            publish(updated);
+        } else if (outOfStock.get(ingredientOrdinal)) {
+            outOfStock.clear(ingredientOrdinal);
+            // Позиция может зависеть и от другого закончившегося ингредиента
+            publish(recompute());
+        }
+    }
+
+    /**
+     * Порядковый номер позиции (-1, если позиции нет в текущем меню).
+     * После удаления позиции из меню ее номер может достаться другой позиции.
+     */
+    public int ordinalOf(String itemId) {
+        Integer ordinal = itemId != null ? state.ordinals.get(itemId) : null;
+        return ordinal != null ? ordinal : -1;
+    }
+
+    public boolean isAvailable(int ordinal) {
+        return ordinal >= 0 && state.bits.get(ordinal);
+    }
+
+    public boolean isAvailable(String itemId) {
+        State current = state;
+        Integer ordinal = itemId != null ? current.ordinals.get(itemId) : null;
+        return ordinal != null && current.bits.get(ordinal);
+    }
+
+    /**
+     * Доступность позиции; для позиций вне меню - собственный флаг позиции
+     * и наличие всех ее ингредиентов на складе
+     */
+    public boolean isAvailable(MenuItem item) {
+        State current = state;
+        Integer ordinal = current.ordinals.get(item.getId());
+        if (ordinal != null) {
+            return current.bits.get(ordinal);
+        }
+        return item.isAvailable() && ingredientsInStock(item);
+    }
+
+    /**
+     * Количество доступных позиций
+     */
+    public int getAvailableCount() {
+        return state.bits.cardinality();
+    }
+
+    /**
+     * ID позиций меню, в состав которых входит ингредиент
+     */
+    public synchronized List<String> findDependentItems(Ingredient ingredient) {
+        BitSet items = dependents.get(ingredient.getOrdinal());
+        if (items == null) {
+            return List.of();
+        }
+        List<String> result = new ArrayList<>(items.cardinality());
+        for (int i = items.nextSetBit(0); i >= 0; i = items.nextSetBit(i + 1)) {
+            result.add(idsByOrdinal.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Номер версии карты, растет при каждом изменении доступности
+     */
+    public long getVersion() {
+        return state.version;
+    }
+
+    private void publish(BitSet bits) {
+        state = new State(bits, state.ordinals, state.version + 1);
+    }
+
+    /**
+     * Сохраняет номера оставшихся позиций, освобождает номера удаленных
+     * и выдает новым позициям сначала освободившиеся номера
+     */
+    private Map<String, Integer> assignOrdinals(Collection<? extends MenuItem> items) {
+        Map<String, Integer> previous = state.ordinals;
+        Map<String, Integer> ordinals = new HashMap<>(items.size() * 4 / 3 + 1);
+        for (MenuItem item : items) {
+            Integer ordinal = previous.get(item.getId());
+            if (ordinal != null) {
+                ordinals.put(item.getId(), ordinal);
+            }
+        }
+        for (Map.Entry<String, Integer> entry : previous.entrySet()) {
+            if (!ordinals.containsKey(entry.getKey())) {
+                idsByOrdinal.set(entry.getValue(), null);
+                freeOrdinals.set(entry.getValue());
+            }
+        }
+        for (MenuItem item : items) {
+            if (ordinals.containsKey(item.getId())) {
+                continue;
+            }
+            int ordinal = freeOrdinals.nextSetBit(0);
+            if (ordinal >= 0) {
+                freeOrdinals.clear(ordinal);
+                idsByOrdinal.set(ordinal, item.getId());
+            } else {
+                ordinal = idsByOrdinal.size();
+                idsByOrdinal.add(item.getId());
+            }
+            ordinals.put(item.getId(), ordinal);
+        }
+        return Collections.unmodifiableMap(ordinals);
+    }
+
+    private static boolean ingredientsInStock(MenuItem item) {
+        if (item instanceof Pizza) {
+            for (Topping topping : ((Pizza) item).getToppings()) {
+                if (!topping.getIngredient().isInStock()) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private BitSet recompute() {
+        BitSet bits = (BitSet) enabled.clone();
+        for (int i = outOfStock.nextSetBit(0); i >= 0; i = outOfStock.nextSetBit(i + 1)) {
+            BitSet items = dependents.get(i);
+            if (items != null) {
+                bits.andNot(items);
+            }
+        }
+        return bits;
+    }
+
+    /**
+     * Опубликованная битовая карта, номера позиций и номер версии
+     */
+    private static final class State {
+        final BitSet bits;
+        final Map<String, Integer> ordinals;
+        final long version;
+
+        State(BitSet bits, Map<String, Integer> ordinals, long version) {
+            this.bits = bits;
+            this.ordinals = ordinals;
+            this.version = version;
+        }
+    }
+}
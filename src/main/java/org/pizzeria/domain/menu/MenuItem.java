@@ -15,4 +15,13 @@ public interface MenuItem {
     MenuCategory getCategory();
     boolean isAvailable();
     void setAvailable(boolean available);
+
+    /**
+     * Копия позиции с тем же ID, указанной ценой и доступностью.
+     * Используется при публикации новой версии меню, чтобы не менять
+     * объекты, на которые ссылаются прежние версии.
+     *
+     * @param price новая цена (для пиццы - базовая) или null, чтобы сохранить текущую
+     */
+    MenuItem revise(Money price, boolean available);
 }
\ No newline at end of file
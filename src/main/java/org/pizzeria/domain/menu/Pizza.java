@@ -2,25 +2,48 @@ package org.pizzeria.domain.menu;
 
 import org.pizzeria.domain.common.*;
 
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.UUID;
 
 /**
  * Пицца - главный продукт пиццерии.
  * Может быть создана через Builder или Factory.
+ *
+ * Итоговая цена кешируется и сбрасывается при изменении базовой цены
+ * или топпингов.
+ *
+ * Компактное представление: размер, тесто и прожарка упакованы в один байт,
+ * а топпинги хранятся как массив порядковых номеров из ToppingRegistry
+ * (массив, а не битсет, чтобы поддерживать двойные порции).
+ * Массив неизменяемый и заменяется целиком; список Topping собирается по запросу.
+ * Вектор ингредиентов (BillOfMaterials) кешируется для текущего массива топпингов.
  */
 public class Pizza implements MenuItem {
+    private static final PizzaSize[] SIZES = PizzaSize.values();
+    private static final DoughType[] DOUGH_TYPES = DoughType.values();
+    private static final BakeLevel[] BAKE_LEVELS = BakeLevel.values();
+    // Биты 0-2 - размер, 3-5 - тесто, 6-7 - прожарка
+    private static final int DOUGH_SHIFT = 3;
+    private static final int BAKE_SHIFT = 6;
+    private static final int FIELD_MASK = 0b111;
+
+    static {
+        if (SIZES.length > 8 || DOUGH_TYPES.length > 8 || BAKE_LEVELS.length > 4) {
+            throw new IllegalStateException("Pizza options do not fit into packed byte");
+        }
+    }
+
     private final String id;
     private final String name;
     private String description;
-    private PizzaSize size;
-    private DoughType doughType;
-    private BakeLevel bakeLevel;
-    private final List<Topping> toppings;
-    private Money basePrice;
+    private final byte options;
+    private volatile short[] toppingCodes;
+    private volatile Money basePrice;
     private boolean available;
+    private volatile PriceCache priceCache; // null - цена требует пересчета
+    private volatile IngredientCache ingredientCache;
 
     // Конструктор для Builder
     public Pizza(String name, String description, PizzaSize size, 
@@ -29,10 +52,8 @@ public class Pizza implements MenuItem {
         this.id = UUID.randomUUID().toString();
         this.name = name;
         this.description = description;
-        this.size = size;
-        this.doughType = doughType;
-        this.bakeLevel = bakeLevel;
-        this.toppings = new ArrayList<>(toppings);
+        this.options = pack(size, doughType, bakeLevel);
+        this.toppingCodes = encode(toppings);
         this.basePrice = basePrice;
         this.available = true;
     }
@@ -42,14 +63,41 @@ public class Pizza implements MenuItem {
         this.id = id;
         this.name = name;
         this.description = "";
-        this.size = size;
-        this.doughType = doughType;
-        this.bakeLevel = BakeLevel.NORMAL;
-        this.toppings = new ArrayList<>();
+        this.options = pack(size, doughType, BakeLevel.NORMAL);
+        this.toppingCodes = new short[0];
         this.basePrice = basePrice;
         this.available = true;
     }
 
+    // Конструктор для Prototype и новых версий меню: топпинги и кеши разделяются с оригиналом
+    private Pizza(Pizza source, String id, Money basePrice, boolean available) {
+        this.id = id;
+        this.name = source.name;
+        this.description = source.description;
+        this.options = source.options;
+        this.toppingCodes = source.toppingCodes;
+        this.basePrice = basePrice;
+        this.available = available;
+        this.priceCache = source.priceCache; // проверяется по basePrice, поэтому безопасен
+        this.ingredientCache = source.ingredientCache;
+    }
+
+    /**
+     * Создает копию пиццы с новым ID (паттерн Prototype).
+     * Копирование дешевое: неизменяемый массив топпингов и рассчитанная цена не пересоздаются.
+     */
+    public Pizza copy() {
+        return new Pizza(this, UUID.randomUUID().toString(), basePrice, available);
+    }
+
+    /**
+     * Копия с тем же ID, новой базовой ценой и доступностью (для новой версии меню)
+     */
+    @Override
+    public Pizza revise(Money basePrice, boolean available) {
+        return new Pizza(this, id, basePrice != null ? basePrice : this.basePrice, available);
+    }
+
     @Override
     public String getId() {
         return id;
@@ -75,19 +123,115 @@ public class Pizza implements MenuItem {
     }
 
     public PizzaSize getSize() {
-        return size;
+        return SIZES[options & FIELD_MASK];
     }
 
     public DoughType getDoughType() {
-        return doughType;
+        return DOUGH_TYPES[((options & 0xFF) >>> DOUGH_SHIFT) & FIELD_MASK];
     }
 
     public BakeLevel getBakeLevel() {
-        return bakeLevel;
+        return BAKE_LEVELS[(options & 0xFF) >>> BAKE_SHIFT];
     }
 
+    /**
+     * Возвращает топпинги, восстанавливая их по порядковым номерам
+     */
     public List<Topping> getToppings() {
-        return Collections.unmodifiableList(toppings);
+        short[] codes = toppingCodes;
+        Topping[] result = new Topping[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            result[i] = ToppingRegistry.byOrdinal(codes[i]);
+        }
+        return List.of(result);
+    }
+
+    /**
+     * Возвращает количество топпингов без восстановления списка
+     */
+    public int getToppingCount() {
+        return toppingCodes.length;
+    }
+
+    /**
+     * Проверяет, есть ли на пицце топпинг с указанным ингредиентом
+     */
+    public boolean hasIngredient(Ingredient ingredient) {
+        for (short code : toppingCodes) {
+            if (ToppingRegistry.byOrdinal(code).getIngredient() == ingredient) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Возвращает копию массива порядковых номеров топпингов (ToppingRegistry)
+     */
+    public short[] getToppingOrdinals() {
+        return toppingCodes.clone();
+    }
+
+    /**
+     * Добавляет топпинг
+     */
+    public synchronized void addTopping(Topping topping) {
+        if (topping == null) {
+            throw new IllegalArgumentException("Topping cannot be null");
+        }
+        short[] current = toppingCodes;
+        short[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = code(topping);
+        toppingCodes = updated;
+        invalidatePrice();
+    }
+
+    /**
+     * Удаляет одну порцию топпинга
+     */
+    public synchronized boolean removeTopping(Topping topping) {
+        if (topping == null) {
+            return false;
+        }
+        short[] current = toppingCodes;
+        int ordinal = ToppingRegistry.intern(topping).getOrdinal();
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] == ordinal) {
+                short[] updated = new short[current.length - 1];
+                System.arraycopy(current, 0, updated, 0, i);
+                System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+                toppingCodes = updated;
+                invalidatePrice();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Содержит ли пицца хотя бы один из топпингов с указанными номерами
+     */
+    public boolean usesAnyTopping(BitSet toppingOrdinals) {
+        for (short code : toppingCodes) {
+            if (toppingOrdinals.get(code)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Вектор количеств ингредиентов по номерам IngredientRegistry (общий, не изменять)
+     */
+    int[] ingredientVector() {
+        short[] currentToppings = toppingCodes;
+        IngredientCache cache = ingredientCache;
+        if (cache != null && cache.toppingCodes == currentToppings) {
+            return cache.quantities;
+        }
+        int[] quantities = BillOfMaterials.build(currentToppings);
+        ingredientCache = new IngredientCache(currentToppings, quantities);
+        return quantities;
     }
 
     public Money getBasePrice() {
@@ -99,26 +243,32 @@ public class Pizza implements MenuItem {
             throw new IllegalArgumentException("Price cannot be null");
         }
         this.basePrice = basePrice;
+        invalidatePrice();
     }
 
     /**
-     * Рассчитывает полную стоимость пиццы с учетом размера, теста и топпингов
+     * Сбрасывает закешированную цену (например, после изменения цен топпингов)
+     */
+    public void invalidatePrice() {
+        priceCache = null;
+    }
+
+    /**
+     * Возвращает полную стоимость пиццы с учетом размера, теста и топпингов.
+     * Повторные вызовы возвращают закешированное значение без аллокаций.
      */
     @Override
     public Money getPrice() {
-        Money price = basePrice;
-        
-        // Умножаем на множитель размера
-        price = price.multiply(size.getPriceMultiplier());
-        
-        // Добавляем стоимость теста
-        price = price.add(Money.of(doughType.getAdditionalPrice()));
-        
-        // Добавляем стоимость топпингов
-        for (Topping topping : toppings) {
-            price = price.add(topping.getPrice());
+        Money currentBase = basePrice;
+        short[] currentToppings = toppingCodes;
+        long[] toppingPrices = ToppingRegistry.priceTable();
+        PriceCache cache = priceCache;
+        if (cache != null && cache.basePrice == currentBase && cache.toppingCodes == currentToppings
+            && cache.toppingPrices == toppingPrices) {
+            return cache.price;
         }
-        
+        Money price = PizzaPricing.price(currentBase, getSize(), getDoughType(), currentToppings);
+        priceCache = new PriceCache(currentBase, currentToppings, toppingPrices, price);
         return price;
     }
 
@@ -135,6 +285,60 @@ public class Pizza implements MenuItem {
     @Override
     public String toString() {
         return String.format("%s (%s, %s) - %s", 
-            name, size.getDisplayName(), doughType.getDisplayName(), getPrice());
+            name, getSize().getDisplayName(), getDoughType().getDisplayName(), getPrice());
+    }
+
+    private static byte pack(PizzaSize size, DoughType doughType, BakeLevel bakeLevel) {
+        return (byte) (size.ordinal()
+            | doughType.ordinal() << DOUGH_SHIFT
+            | bakeLevel.ordinal() << BAKE_SHIFT);
+    }
+
+    private static short[] encode(List<Topping> toppings) {
+        short[] codes = new short[toppings.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = code(toppings.get(i));
+        }
+        return codes;
+    }
+
+    private static short code(Topping topping) {
+        int ordinal = ToppingRegistry.intern(topping).getOrdinal();
+        if (ordinal > Short.MAX_VALUE) {
+            throw new IllegalStateException("Too many distinct toppings: " + ordinal);
+        }
+        return (short) ordinal;
+    }
+
+    /**
+     * Закешированная цена вместе с входными данными, из которых она посчитана.
+     * Кеш действителен, только пока базовая цена, массив топпингов
+     * и таблица цен топпингов те же.
+     */
+    private static final class PriceCache {
+        final Money basePrice;
+        final short[] toppingCodes;
+        final long[] toppingPrices;
+        final Money price;
+
+        PriceCache(Money basePrice, short[] toppingCodes, long[] toppingPrices, Money price) {
+            this.basePrice = basePrice;
+            this.toppingCodes = toppingCodes;
+            this.toppingPrices = toppingPrices;
+            this.price = price;
+        }
+    }
+
+    /**
+     * Закешированный вектор ингредиентов и массив топпингов, по которому он построен
+     */
+    private static final class IngredientCache {
+        final short[] toppingCodes;
+        final int[] quantities;
+
+        IngredientCache(short[] toppingCodes, int[] quantities) {
+            this.toppingCodes = toppingCodes;
+            this.quantities = quantities;
+        }
     }
-}
\ No newline at end of file
+}
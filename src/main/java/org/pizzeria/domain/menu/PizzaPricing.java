@@ -0,0 +1,112 @@
+package org.pizzeria.domain.menu;
+
+import org.pizzeria.domain.common.Currency;
+import org.pizzeria.domain.common.DoughType;
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.common.PizzaSize;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Движок расчета цены пиццы в центах.
+ * Цена - чистая функция от базовой цены, размера, теста и набора топпингов:
+ *   round(база * множитель размера) + надбавка за тесто + сумма топпингов.
+ *
+ * Вклады размера и теста предрассчитаны, цены топпингов берутся из таблицы
+ * ToppingRegistry, поэтому расчет - несколько целочисленных операций без аллокаций.
+ * Округление совпадает с Money (HALF_UP до центов).
+ */
+public final class PizzaPricing {
+    private static final Currency CURRENCY = Currency.USD;
+    // Множитель размера как дробь numerator / denominator (1.5 -> 15 / 10)
+    private static final long[] SIZE_NUMERATOR = new long[PizzaSize.values().length];
+    private static final long[] SIZE_DENOMINATOR = new long[PizzaSize.values().length];
+    private static final long[] DOUGH_CENTS = new long[DoughType.values().length];
+
+    static {
+        for (PizzaSize size : PizzaSize.values()) {
+            BigDecimal multiplier = BigDecimal.valueOf(size.getPriceMultiplier());
+            if (multiplier.scale() < 0) {
+                multiplier = multiplier.setScale(0);
+            }
+            SIZE_NUMERATOR[size.ordinal()] = multiplier.unscaledValue().longValueExact();
+            SIZE_DENOMINATOR[size.ordinal()] = BigDecimal.TEN.pow(multiplier.scale()).longValueExact();
+        }
+        for (DoughType doughType : DoughType.values()) {
+            DOUGH_CENTS[doughType.ordinal()] = Money.of(doughType.getAdditionalPrice()).getMinorUnits();
+        }
+    }
+
+    private PizzaPricing() {
+    }
+
+    /**
+     * Базовая цена в центах с учетом множителя размера
+     */
+    public static long sizedBaseCents(long baseCents, PizzaSize size) {
+        long numerator = SIZE_NUMERATOR[size.ordinal()];
+        long denominator = SIZE_DENOMINATOR[size.ordinal()];
+        long scaled = Math.multiplyExact(baseCents, numerator);
+        long quotient = scaled / denominator;
+        long remainder = scaled % denominator;
+        // HALF_UP для неотрицательных значений
+        if (remainder >= denominator - remainder) {
+            quotient++;
+        }
+        return quotient;
+    }
+
+    /**
+     * Надбавка за тип теста в центах
+     */
+    public static long doughCents(DoughType doughType) {
+        return DOUGH_CENTS[doughType.ordinal()];
+    }
+
+    /**
+     * Сумма цен топпингов в центах по порядковым номерам ToppingRegistry
+     */
+    public static long toppingsCents(short[] toppingOrdinals) {
+        long sum = 0;
+        for (short ordinal : toppingOrdinals) {
+            sum += ToppingRegistry.priceMinorUnits(ordinal);
+        }
+        return sum;
+    }
+
+    /**
+     * Полная цена пиццы в центах
+     */
+    public static long priceCents(long baseCents, PizzaSize size, DoughType doughType, short[] toppingOrdinals) {
+        return sizedBaseCents(baseCents, size) + doughCents(doughType) + toppingsCents(toppingOrdinals);
+    }
+
+    /**
+     * Полная цена пиццы
+     */
+    public static Money price(Money basePrice, PizzaSize size, DoughType doughType, short[] toppingOrdinals) {
+        return Money.ofMinorUnits(
+            priceCents(baseCents(basePrice), size, doughType, toppingOrdinals), CURRENCY);
+    }
+
+    /**
+     * Полная цена пиццы для произвольного списка топпингов (например, предпросмотр в Builder)
+     */
+    public static Money price(Money basePrice, PizzaSize size, DoughType doughType, List<Topping> toppings) {
+        long cents = sizedBaseCents(baseCents(basePrice), size) + doughCents(doughType);
+        for (Topping topping : toppings) {
+            cents += baseCents(topping.getPrice());
+        }
+        return Money.ofMinorUnits(cents, CURRENCY);
+    }
+
+    private static long baseCents(Money money) {
+        if (money.getCurrencyUnit() != CURRENCY) {
+            throw new IllegalArgumentException(
+                String.format("Currency mismatch: %s vs %s", money.getCurrencyUnit(), CURRENCY)
+            );
+        }
+        return money.getMinorUnits();
+    }
+}
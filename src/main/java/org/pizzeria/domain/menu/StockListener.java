@@ -0,0 +1,10 @@
+package org.pizzeria.domain.menu;
+
+/**
+ * Слушатель изменения наличия ингредиентов на складе.
+ * Вызывается только при переходе "есть в наличии" <-> "закончился".
+ */
+@FunctionalInterface
+public interface StockListener {
+    void stockChanged(Ingredient ingredient, boolean inStock);
+}
@@ -2,13 +2,27 @@ package org.pizzeria.domain.menu;
 
 import org.pizzeria.domain.common.Money;
 
+import java.util.Objects;
+
 /**
  * Топпинг (добавка) для пиццы.
  * Используется в Builder Pattern.
+ * Всегда ссылается на канонический ингредиент из IngredientRegistry.
+ * Топпинги с одинаковым ингредиентом и базовой ценой равны;
+ * канонические экземпляры выдает ToppingRegistry.
+ *
+ * Пока цена ингредиента не менялась, топпинг стоит ровно базовую цену,
+ * переданную в конструктор. Изменение цены ингредиента (pricePerUnit)
+ * сдвигает цену топпинга на ту же разницу относительно цены ингредиента
+ * в момент создания топпинга. Для зарегистрированных топпингов цена берется
+ * из таблицы ToppingRegistry, которую обновляет PricePropagationService.
  */
 public class Topping {
     private final Ingredient ingredient;
-    private final Money price;
+    private final Money basePrice;
+    // Стоимость ингредиента (в минимальных единицах), уже включенная в basePrice
+    private final long baseIngredientMinorUnits;
+    private volatile int ordinal = -1; // номер в ToppingRegistry, -1 - не зарегистрирован
 
     public Topping(Ingredient ingredient, Money price) {
         if (ingredient == null) {
@@ -17,16 +31,61 @@ public class Topping {
         if (price == null) {
             throw new IllegalArgumentException("Price cannot be null");
         }
-        this.ingredient = ingredient;
-        this.price = price;
+        this.ingredient = IngredientRegistry.intern(ingredient);
+        this.basePrice = price;
+        this.baseIngredientMinorUnits = ingredientMinorUnits(this.ingredient);
+    }
+
+    public Topping(String ingredientName, Money price) {
+        this(IngredientRegistry.intern(ingredientName), price);
     }
 
     public Ingredient getIngredient() {
         return ingredient;
     }
 
+    /**
+     * Текущая цена топпинга (базовая цена с учетом изменения цены ингредиента)
+     */
     public Money getPrice() {
-        return price;
+        if (isRegistered()) {
+            return Money.ofMinorUnits(ToppingRegistry.priceMinorUnits(ordinal), basePrice.getCurrencyUnit());
+        }
+        return Money.ofMinorUnits(currentPriceMinorUnits(), basePrice.getCurrencyUnit());
+    }
+
+    /**
+     * Цена, с которой топпинг был создан
+     */
+    public Money getBasePrice() {
+        return basePrice;
+    }
+
+    /**
+     * Цена по текущей стоимости ингредиента в минимальных единицах (не меньше нуля)
+     */
+    long currentPriceMinorUnits() {
+        long delta = Math.subtractExact(ingredientMinorUnits(ingredient), baseIngredientMinorUnits);
+        return Math.max(0, Math.addExact(basePrice.getMinorUnits(), delta));
+    }
+
+    private static long ingredientMinorUnits(Ingredient ingredient) {
+        return Money.of(ingredient.getPricePerUnit()).getMinorUnits();
+    }
+
+    /**
+     * Порядковый номер в ToppingRegistry (-1, если топпинг не зарегистрирован)
+     */
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public boolean isRegistered() {
+        return ordinal >= 0;
+    }
+
+    void assignOrdinal(int ordinal) {
+        this.ordinal = ordinal;
     }
 
     public String getName() {
@@ -37,6 +96,19 @@ public class Topping {
         return ingredient.isInStock();
     }
 
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Topping topping = (Topping) o;
+        return ingredient == topping.ingredient && basePrice.equals(topping.basePrice);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(ingredient, basePrice);
+    }
+
     @Override
     public String toString() {
         return ingredient.getName();
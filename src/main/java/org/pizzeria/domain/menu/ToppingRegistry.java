@@ -0,0 +1,151 @@
+package org.pizzeria.domain.menu;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Реестр канонических топпингов (паттерн Flyweight).
+ * Топпинг определяется ингредиентом и базовой ценой; для каждой такой пары
+ * существует один экземпляр с компактным порядковым номером.
+ *
+ * Pizza хранит топпинги как массив этих номеров вместо списка объектов.
+ * Текущие цены топпингов лежат в таблице по номеру; при изменении цен
+ * таблица заменяется целиком, поэтому кеши, привязанные к ссылке на таблицу,
+ * сбрасываются автоматически.
+ */
+public final class ToppingRegistry {
+    private static final Map<Integer, Topping[]> byIngredient = new ConcurrentHashMap<>();
+    private static volatile Topping[] byOrdinal = new Topping[0];
+    // Цены топпингов в минимальных единицах, индекс - порядковый номер
+    private static volatile long[] priceMinorUnits = new long[0];
+
+    private ToppingRegistry() {
+    }
+
+    /**
+     * Возвращает канонический топпинг с тем же ингредиентом и ценой
+     */
+    public static Topping intern(Topping topping) {
+        if (topping == null) {
+            throw new IllegalArgumentException("Topping cannot be null");
+        }
+        if (topping.isRegistered()) {
+            return topping;
+        }
+        Topping existing = find(byIngredient.get(topping.getIngredient().getOrdinal()), topping);
+        if (existing != null) {
+            return existing;
+        }
+        return register(topping);
+    }
+
+    /**
+     * Возвращает топпинг по порядковому номеру
+     */
+    public static Topping byOrdinal(int ordinal) {
+        Topping[] snapshot = byOrdinal;
+        if (ordinal < 0 || ordinal >= snapshot.length) {
+            throw new IllegalArgumentException("Unknown topping ordinal: " + ordinal);
+        }
+        return snapshot[ordinal];
+    }
+
+    /**
+     * Цена топпинга в минимальных единицах (центах) без обращения к Money
+     */
+    public static long priceMinorUnits(int ordinal) {
+        return priceMinorUnits[ordinal];
+    }
+
+    /**
+     * Текущая таблица цен (не изменяется после публикации)
+     */
+    static long[] priceTable() {
+        return priceMinorUnits;
+    }
+
+    /**
+     * Пересчитывает цены топпингов с указанными ингредиентами по их текущей стоимости.
+     * Таблица цен публикуется один раз на весь пакет изменений.
+     *
+     * @param ingredientOrdinals порядковые номера ингредиентов
+     * @return номера топпингов, цена которых изменилась
+     */
+    public static synchronized BitSet refreshPrices(BitSet ingredientOrdinals) {
+        BitSet changed = new BitSet();
+        long[] updated = null;
+        for (int i = ingredientOrdinals.nextSetBit(0); i >= 0; i = ingredientOrdinals.nextSetBit(i + 1)) {
+            Topping[] variants = byIngredient.get(i);
+            if (variants == null) {
+                continue;
+            }
+            for (Topping topping : variants) {
+                long price = topping.currentPriceMinorUnits();
+                int ordinal = topping.getOrdinal();
+                if (priceMinorUnits[ordinal] != price) {
+                    if (updated == null) {
+                        updated = priceMinorUnits.clone();
+                    }
+                    updated[ordinal] = price;
+                    changed.set(ordinal);
+                }
+            }
+        }
+        if (updated != null) {
+            priceMinorUnits = updated;
+        }
+        return changed;
+    }
+
+    /**
+     * Количество зарегистрированных топпингов (все порядковые номера меньше этого значения)
+     */
+    public static int size() {
+        return byOrdinal.length;
+    }
+
+    /**
+     * Все канонические топпинги с указанным ингредиентом
+     */
+    public static List<Topping> findByIngredient(Ingredient ingredient) {
+        Topping[] variants = byIngredient.get(ingredient.getOrdinal());
+        return variants != null ? List.of(variants) : List.of();
+    }
+
+    private static synchronized Topping register(Topping topping) {
+        int ingredientOrdinal = topping.getIngredient().getOrdinal();
+        Topping[] variants = byIngredient.get(ingredientOrdinal);
+        Topping existing = find(variants, topping);
+        if (existing != null) {
+            return existing;
+        }
+        Topping[] current = byOrdinal;
+        Topping[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = topping;
+        long[] updatedPrices = Arrays.copyOf(priceMinorUnits, current.length + 1);
+        updatedPrices[current.length] = topping.currentPriceMinorUnits();
+        // Сначала цены, затем топпинги: номер, видимый через byOrdinal, всегда есть в таблице цен
+        priceMinorUnits = updatedPrices;
+        byOrdinal = updated;
+        topping.assignOrdinal(current.length);
+
+        Topping[] updatedVariants = variants == null ? new Topping[1] : Arrays.copyOf(variants, variants.length + 1);
+        updatedVariants[updatedVariants.length - 1] = topping;
+        byIngredient.put(ingredientOrdinal, updatedVariants);
+        return topping;
+    }
+
+    private static Topping find(Topping[] variants, Topping topping) {
+        if (variants != null) {
+            for (Topping variant : variants) {
+                if (variant.equals(topping)) {
+                    return variant;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -1,33 +1,51 @@
 package org.pizzeria.domain.order;
 
 import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.common.MoneyAccumulator;
 import org.pizzeria.domain.common.OrderStatus;
+import org.pizzeria.domain.menu.BillOfMaterials;
 import org.pizzeria.domain.menu.MenuItem;
 import org.pizzeria.domain.user.Customer;
+import org.pizzeria.exception.OrderModificationException;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Заказ клиента.
  * Центральная доменная модель системы.
  * Содержит много ассоциаций: Customer, OrderItem, Money, OrderStatus.
+ *
+ * Изменение позиций и цен синхронизировано на самом заказе,
+ * поэтому разные заказы можно обрабатывать параллельно.
+ *
+ * Позиции хранятся по ID позиции меню, подытог и количество поддерживаются
+ * инкрементально. С -Dpizzeria.order.verifyTotals=true при каждом изменении
+ * стоимость каждой позиции и подытог сверяются с полным пересчетом.
  */
 public class Order {
+    private static final boolean VERIFY_TOTALS = Boolean.getBoolean("pizzeria.order.verifyTotals");
+
     private final String id;
     private final Customer customer;
-    private final List<OrderItem> items;
-    private OrderStatus status;
+    private final Map<String, OrderItem> items;
+    // Стоимость каждой позиции, уже учтенная в подытоге
+    private final Map<String, Money> lineTotals;
+    private int itemCount;
+    private final AtomicReference<StatusState> state;
+    private final CopyOnWriteArrayList<OrderStatusListener> statusListeners = new CopyOnWriteArrayList<>();
+    private final CopyOnWriteArrayList<OrderLineListener> lineListeners = new CopyOnWriteArrayList<>();
     private final LocalDateTime createdAt;
-    private LocalDateTime confirmedAt;
-    private LocalDateTime completedAt;
-    private Money subtotal;
-    private Money discount;
-    private Money deliveryFee;
-    private Money total;
+    private volatile Money subtotal;
+    private volatile Money discount;
+    private volatile Money deliveryFee;
+    private volatile Money total;
     private String notes; // особые пожелания клиента
 
     public Order(Customer customer) {
@@ -36,8 +54,9 @@ public class Order {
         }
         this.id = UUID.randomUUID().toString();
         this.customer = customer;
-        this.items = new ArrayList<>();
-        this.status = OrderStatus.DRAFT;
+        this.items = new LinkedHashMap<>();
+        this.lineTotals = new HashMap<>();
+        this.state = new AtomicReference<>(StatusState.INITIAL);
         this.createdAt = LocalDateTime.now();
         this.subtotal = Money.zero();
         this.discount = Money.zero();
@@ -49,8 +68,9 @@ public class Order {
     public Order(String id, Customer customer) {
         this.id = id;
         this.customer = customer;
-        this.items = new ArrayList<>();
-        this.status = OrderStatus.DRAFT;
+        this.items = new LinkedHashMap<>();
+        this.lineTotals = new HashMap<>();
+        this.state = new AtomicReference<>(StatusState.INITIAL);
         this.createdAt = LocalDateTime.now();
         this.subtotal = Money.zero();
         this.discount = Money.zero();
@@ -59,6 +79,37 @@ public class Order {
         this.notes = "";
     }
 
+    /**
+     * Копия заказа для отложенной обработки: статус, временные метки, позиции
+     * и суммы на момент вызова. Копия не связана с исходным заказом
+     * и его слушателями статуса.
+     */
+    public synchronized Order snapshot() {
+        return new Order(this);
+    }
+
+    private Order(Order source) {
+        this.id = source.id;
+        this.customer = source.customer;
+        this.items = new LinkedHashMap<>();
+        for (Map.Entry<String, OrderItem> entry : source.items.entrySet()) {
+            OrderItem item = entry.getValue();
+            OrderItem copy = new OrderItem(item.getMenuItem(), item.getQuantity(),
+                item.getUnitPrice(), item.getMenuVersion());
+            copy.attachTo(this);
+            this.items.put(entry.getKey(), copy);
+        }
+        this.lineTotals = new HashMap<>(source.lineTotals);
+        this.itemCount = source.itemCount;
+        this.state = new AtomicReference<>(source.state.get());
+        this.createdAt = source.createdAt;
+        this.subtotal = source.subtotal;
+        this.discount = source.discount;
+        this.deliveryFee = source.deliveryFee;
+        this.total = source.total;
+        this.notes = source.notes;
+    }
+
     public String getId() {
         return id;
     }
@@ -67,25 +118,82 @@ public class Order {
         return customer;
     }
 
-    public List<OrderItem> getItems() {
-        return Collections.unmodifiableList(items);
+    public synchronized List<OrderItem> getItems() {
+        return List.copyOf(items.values());
     }
 
     public OrderStatus getStatus() {
-        return status;
+        return state.get().status;
     }
 
-    public void setStatus(OrderStatus status) {
-        if (status == null) {
+    /**
+     * Переводит заказ в новый статус без блокировок.
+     * Переход проверяется по таблице OrderStatus и применяется через CAS
+     * вместе с временными метками, поэтому параллельные обновления
+     * (кухня, курьер) не затирают друг друга.
+     * После успешного перехода вызываются слушатели OrderStatusListener.
+     */
+    public void transitionTo(OrderStatus next) throws OrderModificationException {
+        if (next == null) {
             throw new IllegalArgumentException("Status cannot be null");
         }
-        this.status = status;
-        
-        if (status == OrderStatus.CONFIRMED && confirmedAt == null) {
-            confirmedAt = LocalDateTime.now();
+        StatusState current;
+        StatusState updated;
+        do {
+            current = state.get();
+            if (!current.status.canTransitionTo(next)) {
+                throw new OrderModificationException(String.format(
+                    "Illegal status transition for order %s: %s -> %s", id, current.status, next));
+            }
+            updated = current.moveTo(next);
+        } while (!state.compareAndSet(current, updated));
+        for (OrderStatusListener listener : statusListeners) {
+            try {
+                listener.statusChanged(this, current.status);
+            } catch (Exception e) {
+                System.err.println("Error notifying status listener: " + e.getMessage());
+            }
         }
-        if (status == OrderStatus.COMPLETED && completedAt == null) {
-            completedAt = LocalDateTime.now();
+    }
+
+    /**
+     * Подписывает слушателя на изменения статуса (например, реестр заказов,
+     * которому нужно поддерживать индекс по статусу)
+     */
+    public void addStatusListener(OrderStatusListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        statusListeners.addIfAbsent(listener);
+    }
+
+    public void removeStatusListener(OrderStatusListener listener) {
+        statusListeners.remove(listener);
+    }
+
+    /**
+     * Подписывает слушателя на появление и удаление строк заказа
+     * (например, реестр заказов с индексом позиция -> заказы-черновики)
+     */
+    public void addLineListener(OrderLineListener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        lineListeners.addIfAbsent(listener);
+    }
+
+    public void removeLineListener(OrderLineListener listener) {
+        lineListeners.remove(listener);
+    }
+
+    /**
+     * Устанавливает статус с проверкой допустимости перехода
+     */
+    public void setStatus(OrderStatus status) {
+        try {
+            transitionTo(status);
+        } catch (OrderModificationException e) {
+            throw new IllegalStateException(e.getMessage(), e);
         }
     }
 
@@ -94,11 +202,11 @@ public class Order {
     }
 
     public LocalDateTime getConfirmedAt() {
-        return confirmedAt;
+        return state.get().confirmedAt;
     }
 
     public LocalDateTime getCompletedAt() {
-        return completedAt;
+        return state.get().completedAt;
     }
 
     public String getNotes() {
@@ -110,48 +218,141 @@ public class Order {
     }
 
     // Управление позициями заказа
-    public void addItem(MenuItem menuItem, int quantity) {
+    public synchronized void addItem(MenuItem menuItem, int quantity) {
+        if (menuItem == null) {
+            throw new IllegalArgumentException("Menu item cannot be null");
+        }
+        addItem(menuItem, quantity, menuItem.getPrice(), OrderItem.UNVERSIONED);
+    }
+
+    /**
+     * Добавляет позицию по цене из закрепленной версии меню.
+     * Если позиция уже есть в заказе, вся строка переоценивается по этой версии.
+     */
+    public synchronized void addItem(MenuItem menuItem, int quantity, Money unitPrice, long menuVersion) {
+        OrderStatus status = getStatus();
         if (!status.isEditable()) {
             throw new IllegalStateException("Cannot modify order in status: " + status);
         }
-        
-        // Проверяем, есть ли уже такая позиция
-        for (OrderItem item : items) {
-            if (item.getMenuItem().getId().equals(menuItem.getId())) {
-                item.setQuantity(item.getQuantity() + quantity);
-                recalculateTotal();
-                return;
-            }
+        if (menuItem == null) {
+            throw new IllegalArgumentException("Menu item cannot be null");
         }
-        
-        // Добавляем новую позицию
-        items.add(new OrderItem(menuItem, quantity));
-        recalculateTotal();
+
+        OrderItem item = items.get(menuItem.getId());
+        if (item != null) {
+            // Такая позиция уже есть - увеличиваем количество
+            item.applyQuantity(item.getQuantity() + quantity);
+            item.reprice(unitPrice, menuVersion);
+        } else {
+            item = new OrderItem(menuItem, quantity, unitPrice, menuVersion);
+            item.attachTo(this);
+            items.put(menuItem.getId(), item);
+            fireLineChanged(menuItem, true);
+        }
+        itemCount += quantity;
+
+        Money previousLine = lineTotals.get(menuItem.getId());
+        Money line = item.getTotalPrice();
+        lineTotals.put(menuItem.getId(), line);
+        Money base = previousLine != null ? subtotal.subtract(previousLine) : subtotal;
+        updateTotals(base.add(line));
     }
 
-    public void removeItem(MenuItem menuItem) {
+    public synchronized void removeItem(MenuItem menuItem) {
+        OrderStatus status = getStatus();
         if (!status.isEditable()) {
             throw new IllegalStateException("Cannot modify order in status: " + status);
         }
-        
-        items.removeIf(item -> item.getMenuItem().getId().equals(menuItem.getId()));
-        recalculateTotal();
+
+        OrderItem removed = items.remove(menuItem.getId());
+        if (removed == null) {
+            return;
+        }
+        removed.attachTo(null);
+        itemCount -= removed.getQuantity();
+        updateTotals(subtotal.subtract(lineTotals.remove(menuItem.getId())));
+        fireLineChanged(removed.getMenuItem(), false);
     }
 
-    public void clearItems() {
+    /**
+     * Меняет количество позиции с обновлением подытога за O(1)
+     *
+     * @return false, если позиции нет в заказе
+     */
+    public synchronized boolean updateItemQuantity(MenuItem menuItem, int quantity) {
+        OrderStatus status = getStatus();
+        if (!status.isEditable()) {
+            throw new IllegalStateException("Cannot modify order in status: " + status);
+        }
+        OrderItem item = items.get(menuItem.getId());
+        if (item == null) {
+            return false;
+        }
+        applyLineQuantity(item, quantity);
+        return true;
+    }
+
+    /**
+     * Изменение количества, начатое из OrderItem
+     *
+     * @return false, если позиция уже не принадлежит заказу
+     */
+    synchronized boolean updateLineQuantity(OrderItem item, int quantity) {
+        if (items.get(item.getMenuItem().getId()) != item) {
+            return false;
+        }
+        OrderStatus status = getStatus();
         if (!status.isEditable()) {
             throw new IllegalStateException("Cannot modify order in status: " + status);
         }
+        applyLineQuantity(item, quantity);
+        return true;
+    }
+
+    private void applyLineQuantity(OrderItem item, int quantity) {
+        int previousQuantity = item.getQuantity();
+        item.applyQuantity(quantity);
+        itemCount += quantity - previousQuantity;
+        Money line = item.getTotalPrice();
+        Money previousLine = lineTotals.put(item.getMenuItem().getId(), line);
+        updateTotals(subtotal.subtract(previousLine).add(line));
+    }
+
+    public synchronized void clearItems() {
+        OrderStatus status = getStatus();
+        if (!status.isEditable()) {
+            throw new IllegalStateException("Cannot modify order in status: " + status);
+        }
+        List<OrderItem> removed = List.copyOf(items.values());
+        for (OrderItem item : removed) {
+            item.attachTo(null);
+        }
         items.clear();
-        recalculateTotal();
+        lineTotals.clear();
+        itemCount = 0;
+        updateTotals(Money.zero());
+        for (OrderItem item : removed) {
+            fireLineChanged(item.getMenuItem(), false);
+        }
+    }
+
+    /**
+     * Суммарная потребность заказа в ингредиентах: вектор по номерам IngredientRegistry
+     */
+    public synchronized int[] getIngredientDemand() {
+        int[] demand = BillOfMaterials.newDemandVector();
+        for (OrderItem item : items.values()) {
+            BillOfMaterials.addTo(demand, item.getMenuItem(), item.getQuantity());
+        }
+        return demand;
     }
 
-    public boolean isEmpty() {
+    public synchronized boolean isEmpty() {
         return items.isEmpty();
     }
 
-    public int getItemCount() {
-        return items.stream().mapToInt(OrderItem::getQuantity).sum();
+    public synchronized int getItemCount() {
+        return itemCount;
     }
 
     // Управление ценами
@@ -163,24 +364,24 @@ public class Order {
         return discount;
     }
 
-    public void setDiscount(Money discount) {
+    public synchronized void setDiscount(Money discount) {
         if (discount == null) {
             throw new IllegalArgumentException("Discount cannot be null");
         }
         this.discount = discount;
-        recalculateTotal();
+        updateTotals(subtotal);
     }
 
     public Money getDeliveryFee() {
         return deliveryFee;
     }
 
-    public void setDeliveryFee(Money deliveryFee) {
+    public synchronized void setDeliveryFee(Money deliveryFee) {
         if (deliveryFee == null) {
             throw new IllegalArgumentException("Delivery fee cannot be null");
         }
         this.deliveryFee = deliveryFee;
-        recalculateTotal();
+        updateTotals(subtotal);
     }
 
     public Money getTotal() {
@@ -188,35 +389,145 @@ public class Order {
     }
 
     /**
-     * Пересчитывает общую стоимость заказа
+     * Переоценивает одну позицию заказа с обновлением подытога за O(1).
+     * Заказ, который уже нельзя изменять, не переоценивается.
+     *
+     * @return true, если цена позиции изменилась
      */
-    private void recalculateTotal() {
-        // Подытог = сумма всех позиций
-        subtotal = items.stream()
-            .map(OrderItem::getTotalPrice)
-            .reduce(Money.zero(), Money::add);
-        
+    public synchronized boolean repriceItem(String menuItemId, Money unitPrice, long menuVersion) {
+        if (!getStatus().isEditable()) {
+            return false;
+        }
+        OrderItem item = items.get(menuItemId);
+        if (item == null || (item.getUnitPrice().equals(unitPrice) && item.getMenuVersion() == menuVersion)) {
+            return false;
+        }
+        item.reprice(unitPrice, menuVersion);
+        Money line = item.getTotalPrice();
+        Money previousLine = lineTotals.put(menuItemId, line);
+        updateTotals(subtotal.subtract(previousLine).add(line));
+        return true;
+    }
+
+    /**
+     * Переоценивает все позиции по текущим ценам меню и полностью пересчитывает подытог
+     */
+    public synchronized void refreshTotals() {
+        lineTotals.clear();
+        for (OrderItem item : items.values()) {
+            item.reprice(item.getMenuItem().getPrice(), OrderItem.UNVERSIONED);
+            lineTotals.put(item.getMenuItem().getId(), item.getTotalPrice());
+        }
+        updateTotals(recomputeSubtotal());
+    }
+
+    /**
+     * Устанавливает новый подытог и пересчитывает итог за O(1)
+     */
+    private void updateTotals(Money newSubtotal) {
+        if (VERIFY_TOTALS) {
+            verifyTotals(newSubtotal);
+        }
+        subtotal = newSubtotal;
+
         // Итого = подытог - скидка + доставка
-        total = subtotal.subtract(discount).add(deliveryFee);
+        total = newSubtotal.subtract(discount).add(deliveryFee);
+    }
+
+    private void fireLineChanged(MenuItem menuItem, boolean added) {
+        for (OrderLineListener listener : lineListeners) {
+            try {
+                if (added) {
+                    listener.lineAdded(this, menuItem);
+                } else {
+                    listener.lineRemoved(this, menuItem);
+                }
+            } catch (Exception e) {
+                System.err.println("Error notifying line listener: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Сверяет каждую закешированную стоимость позиции и подытог с полным пересчетом
+     */
+    private void verifyTotals(Money newSubtotal) {
+        if (lineTotals.size() != items.size()) {
+            throw new IllegalStateException(String.format(
+                "Order %s caches %d line totals for %d items", id, lineTotals.size(), items.size()));
+        }
+        for (Map.Entry<String, OrderItem> entry : items.entrySet()) {
+            Money cached = lineTotals.get(entry.getKey());
+            Money expected = entry.getValue().getTotalPrice();
+            if (!expected.equals(cached)) {
+                throw new IllegalStateException(String.format(
+                    "Cached line total %s of %s diverged from %s in order %s",
+                    cached, entry.getKey(), expected, id));
+            }
+        }
+        Money expected = recomputeSubtotal();
+        if (!expected.equals(newSubtotal)) {
+            throw new IllegalStateException(String.format(
+                "Incremental subtotal %s diverged from full recompute %s in order %s",
+                newSubtotal, expected, id));
+        }
+    }
+
+    private Money recomputeSubtotal() {
+        MoneyAccumulator accumulator = new MoneyAccumulator();
+        for (OrderItem item : items.values()) {
+            accumulator.add(item.getTotalPrice());
+        }
+        return accumulator.getSum();
     }
 
     /**
      * Проверяет, может ли заказ быть отменен
      */
     public boolean isCancellable() {
-        return status.isCancellable();
+        return getStatus().isCancellable();
     }
 
     /**
      * Проверяет, завершен ли заказ
      */
     public boolean isCompleted() {
-        return status.isFinal();
+        return getStatus().isFinal();
     }
 
     @Override
     public String toString() {
         return String.format("Order{id='%s', customer='%s', status=%s, total=%s, items=%d}", 
-            id, customer.getName(), status, total, items.size());
+            id, customer.getName(), getStatus(), total, getItems().size());
+    }
+
+    /**
+     * Неизменяемый снимок статуса вместе с временными метками,
+     * подменяется атомарно целиком.
+     */
+    private static final class StatusState {
+        static final StatusState INITIAL = new StatusState(OrderStatus.DRAFT, null, null);
+
+        final OrderStatus status;
+        final LocalDateTime confirmedAt;
+        final LocalDateTime completedAt;
+
+        StatusState(OrderStatus status, LocalDateTime confirmedAt, LocalDateTime completedAt) {
+            this.status = status;
+            this.confirmedAt = confirmedAt;
+            this.completedAt = completedAt;
+        }
+
+        StatusState moveTo(OrderStatus next) {
+            LocalDateTime confirmed = confirmedAt;
+            LocalDateTime completed = completedAt;
+            if (next == OrderStatus.CONFIRMED && confirmed == null) {
+                confirmed = LocalDateTime.now();
+            }
+            if (next == OrderStatus.COMPLETED && completed == null) {
+                completed = LocalDateTime.now();
+            }
+            return new StatusState(next, confirmed, completed);
+        }
     }
 }
\ No newline at end of file
@@ -8,20 +8,43 @@ import java.util.Objects;
 /**
  * Позиция в заказе (товар + количество).
  * Ассоциация с MenuItem.
+ *
+ * Цена за единицу фиксируется при добавлении вместе с версией меню,
+ * по которой она взята, и не меняется при последующих изменениях меню.
+ *
+ * Позиция, добавленная в заказ, передает изменение количества своему Order,
+ * чтобы подытог и число позиций оставались согласованными; у такой позиции
+ * количество нельзя менять, если заказ уже нельзя изменять.
+ * Цена меняется только через Order.
  */
 public class OrderItem {
+    /** Версия меню для цены, взятой напрямую из позиции меню, а не из снимка */
+    public static final long UNVERSIONED = -1;
+
     private final MenuItem menuItem;
     private int quantity;
+    private Money unitPrice;
+    private long menuVersion;
+    private volatile Order order; // заказ, который ведет подытог по позиции; null - позиция вне заказа
 
     public OrderItem(MenuItem menuItem, int quantity) {
+        this(menuItem, quantity, menuItem != null ? menuItem.getPrice() : null, UNVERSIONED);
+    }
+
+    public OrderItem(MenuItem menuItem, int quantity, Money unitPrice, long menuVersion) {
         if (menuItem == null) {
             throw new IllegalArgumentException("Menu item cannot be null");
         }
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be positive");
         }
+        if (unitPrice == null) {
+            throw new IllegalArgumentException("Unit price cannot be null");
+        }
         this.menuItem = menuItem;
         this.quantity = quantity;
+        this.unitPrice = unitPrice;
+        this.menuVersion = menuVersion;
     }
 
     public MenuItem getMenuItem() {
@@ -32,29 +55,92 @@ public class OrderItem {
         return quantity;
     }
 
+    /**
+     * Цена за единицу, зафиксированная при добавлении в заказ
+     */
+    public Money getUnitPrice() {
+        return unitPrice;
+    }
+
+    /**
+     * Версия меню, по которой рассчитана цена (UNVERSIONED - без снимка)
+     */
+    public long getMenuVersion() {
+        return menuVersion;
+    }
+
+    /**
+     * Переоценивает позицию по цене из другой версии меню
+     */
+    void reprice(Money unitPrice, long menuVersion) {
+        if (unitPrice == null) {
+            throw new IllegalArgumentException("Unit price cannot be null");
+        }
+        this.unitPrice = unitPrice;
+        this.menuVersion = menuVersion;
+    }
+
+    /**
+     * Меняет количество; для позиции заказа - через Order с обновлением подытога
+     *
+     * @throws IllegalStateException если заказ уже нельзя изменять
+     */
     public void setQuantity(int quantity) {
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be positive");
         }
-        this.quantity = quantity;
+        Order owner = order;
+        if (owner == null || !owner.updateLineQuantity(this, quantity)) {
+            this.quantity = quantity;
+        }
     }
 
     public void incrementQuantity() {
-        this.quantity++;
+        changeQuantityBy(1);
     }
 
     public void decrementQuantity() {
-        if (quantity <= 1) {
+        changeQuantityBy(-1);
+    }
+
+    /**
+     * Устанавливает количество без уведомления заказа (вызывается из Order под его блокировкой)
+     */
+    void applyQuantity(int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive");
+        }
+        this.quantity = quantity;
+    }
+
+    void attachTo(Order order) {
+        this.order = order;
+    }
+
+    private void changeQuantityBy(int delta) {
+        Order owner = order;
+        if (owner == null) {
+            setQuantity(checkedQuantity(quantity + delta));
+            return;
+        }
+        // Тот же монитор, что у методов Order: чтение и запись количества атомарны
+        synchronized (owner) {
+            setQuantity(checkedQuantity(quantity + delta));
+        }
+    }
+
+    private static int checkedQuantity(int quantity) {
+        if (quantity < 1) {
             throw new IllegalStateException("Cannot decrement quantity below 1");
         }
-        this.quantity--;
+        return quantity;
     }
 
     /**
-     * Возвращает общую стоимость позиции (цена * количество)
+     * Возвращает общую стоимость позиции (зафиксированная цена * количество)
      */
     public Money getTotalPrice() {
-        return menuItem.getPrice().multiply(quantity);
+        return unitPrice.multiply(quantity);
     }
 
     @Override
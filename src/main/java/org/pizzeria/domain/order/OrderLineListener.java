@@ -0,0 +1,14 @@
+package org.pizzeria.domain.order;
+
+import org.pizzeria.domain.menu.MenuItem;
+
+/**
+ * Слушатель изменения состава заказа: появления и исчезновения строк.
+ * Вызывается под блокировкой заказа, поэтому не должен выполнять долгую работу.
+ * Изменение количества в существующей строке не сообщается.
+ */
+public interface OrderLineListener {
+    void lineAdded(Order order, MenuItem item);
+
+    void lineRemoved(Order order, MenuItem item);
+}
@@ -0,0 +1,12 @@
+package org.pizzeria.domain.order;
+
+import org.pizzeria.domain.common.OrderStatus;
+
+/**
+ * Слушатель изменения статуса заказа.
+ * Вызывается после каждого успешного перехода в потоке, который его выполнил.
+ */
+@FunctionalInterface
+public interface OrderStatusListener {
+    void statusChanged(Order order, OrderStatus previous);
+}
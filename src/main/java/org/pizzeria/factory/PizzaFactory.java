@@ -2,55 +2,84 @@ package org.pizzeria.factory;
 
 import org.pizzeria.builder.PizzaBuilder;
 import org.pizzeria.domain.common.*;
-import org.pizzeria.domain.menu.Ingredient;
 import org.pizzeria.domain.menu.Pizza;
+import org.pizzeria.domain.menu.PizzaPricing;
 import org.pizzeria.domain.menu.Topping;
+import org.pizzeria.domain.menu.ToppingRegistry;
 
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Factory для создания стандартных пицц.
  * Паттерн Factory упрощает создание объектов с предопределенными настройками.
+ *
+ * Для каждой пары (тип, размер) заранее собирается шаблон с рассчитанной ценой,
+ * а createPizza выдает его дешевые копии (паттерн Prototype).
+ * quote считает цену без создания пиццы через PizzaPricing.
  */
 public class PizzaFactory {
     private static final Map<PizzaType, PizzaRecipe> recipes = new HashMap<>();
+    private static final Map<PizzaType, Pizza[]> prototypes = new EnumMap<>(PizzaType.class);
 
     static {
         // Инициализируем рецепты популярных пицц
         initializeRecipes();
+        initializePrototypes();
     }
 
     /**
      * Создает пиццу по типу и размеру
      */
     public static Pizza createPizza(PizzaType type, PizzaSize size) {
+        PizzaRecipe recipe = requireRecipe(type, size);
+
+        // Наличие топпингов проверяем каждый раз - запасы могли закончиться
+        for (Topping topping : recipe.toppings) {
+            if (!topping.isAvailable()) {
+                throw new IllegalArgumentException("Topping is not available: " + topping.getName());
+            }
+        }
+
+        return prototypes.get(type)[size.ordinal()].copy();
+    }
+
+    /**
+     * Возвращает цену стандартной пиццы без ее создания
+     */
+    public static Money quote(PizzaType type, PizzaSize size) {
+        PizzaRecipe recipe = requireRecipe(type, size);
+        return quote(type, size, recipe.doughType, recipe.toppingOrdinals);
+    }
+
+    /**
+     * Возвращает цену пиццы по рецепту с другим тестом и набором топпингов
+     * (порядковые номера ToppingRegistry). Считается сложением предрассчитанных центов.
+     */
+    public static Money quote(PizzaType type, PizzaSize size, DoughType doughType, short[] toppingOrdinals) {
+        PizzaRecipe recipe = requireRecipe(type, size);
+        if (doughType == null) {
+            throw new IllegalArgumentException("Dough type cannot be null");
+        }
+        long cents = recipe.sizedBaseCents[size.ordinal()]
+            + PizzaPricing.doughCents(doughType)
+            + PizzaPricing.toppingsCents(toppingOrdinals);
+        return Money.ofMinorUnits(cents);
+    }
+
+    private static PizzaRecipe requireRecipe(PizzaType type, PizzaSize size) {
         if (type == null) {
             throw new IllegalArgumentException("Pizza type cannot be null");
         }
         if (size == null) {
             throw new IllegalArgumentException("Pizza size cannot be null");
         }
-
         PizzaRecipe recipe = recipes.get(type);
         if (recipe == null) {
             throw new IllegalArgumentException("Unknown pizza type: " + type);
         }
-
-        PizzaBuilder builder = new PizzaBuilder()
-            .withName(recipe.name)
-            .withDescription(recipe.description)
-            .withSize(size)
-            .withDoughType(recipe.doughType)
-            .withBakeLevel(BakeLevel.NORMAL)
-            .withBasePrice(recipe.basePrice);
-
-        // Добавляем топпинги из рецепта
-        for (Topping topping : recipe.toppings) {
-            builder.addTopping(topping);
-        }
-
-        return builder.build();
+        return recipe;
     }
 
     /**
@@ -75,7 +104,9 @@ public class PizzaFactory {
     }
 
     /**
-     * Инициализирует рецепты
+     * Инициализирует рецепты.
+     * Ингредиенты берутся из IngredientRegistry, поэтому, например,
+     * "Mozzarella" - один и тот же объект во всех рецептах.
      */
     private static void initializeRecipes() {
         // Маргарита
@@ -84,9 +115,9 @@ public class PizzaFactory {
             "Classic pizza with tomato sauce, mozzarella, and basil",
             DoughType.TRADITIONAL,
             Money.of(8.99),
-            new Topping(new Ingredient("Tomato Sauce", 0.0), Money.of(0.50)),
-            new Topping(new Ingredient("Mozzarella", 0.0), Money.of(1.50)),
-            new Topping(new Ingredient("Fresh Basil", 0.0), Money.of(0.50))
+            new Topping("Tomato Sauce", Money.of(0.50)),
+            new Topping("Mozzarella", Money.of(1.50)),
+            new Topping("Fresh Basil", Money.of(0.50))
         ));
 
         // Пепперони
@@ -95,9 +126,9 @@ public class PizzaFactory {
             "Classic pepperoni pizza with tomato sauce and mozzarella",
             DoughType.TRADITIONAL,
             Money.of(10.99),
-            new Topping(new Ingredient("Tomato Sauce", 0.0), Money.of(0.50)),
-            new Topping(new Ingredient("Mozzarella", 0.0), Money.of(1.50)),
-            new Topping(new Ingredient("Pepperoni", 0.0), Money.of(2.00))
+            new Topping("Tomato Sauce", Money.of(0.50)),
+            new Topping("Mozzarella", Money.of(1.50)),
+            new Topping("Pepperoni", Money.of(2.00))
         ));
 
         // Гавайская
@@ -106,10 +137,10 @@ public class PizzaFactory {
             "Tropical pizza with ham and pineapple",
             DoughType.TRADITIONAL,
             Money.of(11.99),
-            new Topping(new Ingredient("Tomato Sauce", 0.0), Money.of(0.50)),
-            new Topping(new Ingredient("Mozzarella", 0.0), Money.of(1.50)),
-            new Topping(new Ingredient("Ham", 0.0), Money.of(2.00)),
-            new Topping(new Ingredient("Pineapple", 0.0), Money.of(1.00))
+            new Topping("Tomato Sauce", Money.of(0.50)),
+            new Topping("Mozzarella", Money.of(1.50)),
+            new Topping("Ham", Money.of(2.00)),
+            new Topping("Pineapple", Money.of(1.00))
         ));
 
         // Четыре сыра
@@ -118,10 +149,10 @@ public class PizzaFactory {
             "Rich cheese pizza with four types of cheese",
             DoughType.TRADITIONAL,
             Money.of(12.99),
-            new Topping(new Ingredient("Mozzarella", 0.0), Money.of(1.50)),
-            new Topping(new Ingredient("Parmesan", 0.0), Money.of(1.50)),
-            new Topping(new Ingredient("Gorgonzola", 0.0), Money.of(1.50)),
-            new Topping(new Ingredient("Goat Cheese", 0.0), Money.of(1.50))
+            new Topping("Mozzarella", Money.of(1.50)),
+            new Topping("Parmesan", Money.of(1.50)),
+            new Topping("Gorgonzola", Money.of(1.50)),
+            new Topping("Goat Cheese", Money.of(1.50))
         ));
 
         // Вегетарианская
@@ -130,12 +161,12 @@ public class PizzaFactory {
             "Healthy pizza with fresh vegetables",
             DoughType.TRADITIONAL,
             Money.of(10.99),
-            new Topping(new Ingredient("Tomato Sauce", 0.0), Money.of(0.50)),
-            new Topping(new Ingredient("Mozzarella", 0.0), Money.of(1.50)),
-            new Topping(new Ingredient("Bell Peppers", 0.0), Money.of(1.00)),
-            new Topping(new Ingredient("Mushrooms", 0.0), Money.of(1.00)),
-            new Topping(new Ingredient("Onions", 0.0), Money.of(0.50)),
-            new Topping(new Ingredient("Olives", 0.0), Money.of(0.75))
+            new Topping("Tomato Sauce", Money.of(0.50)),
+            new Topping("Mozzarella", Money.of(1.50)),
+            new Topping("Bell Peppers", Money.of(1.00)),
+            new Topping("Mushrooms", Money.of(1.00)),
+            new Topping("Onions", Money.of(0.50)),
+            new Topping("Olives", Money.of(0.75))
         ));
 
         // Мясная
@@ -144,15 +175,41 @@ public class PizzaFactory {
             "Ultimate meat pizza with multiple meat toppings",
             DoughType.TRADITIONAL,
             Money.of(13.99),
-            new Topping(new Ingredient("Tomato Sauce", 0.0), Money.of(0.50)),
-            new Topping(new Ingredient("Mozzarella", 0.0), Money.of(1.50)),
-            new Topping(new Ingredient("Pepperoni", 0.0), Money.of(2.00)),
-            new Topping(new Ingredient("Sausage", 0.0), Money.of(2.00)),
-            new Topping(new Ingredient("Bacon", 0.0), Money.of(2.00)),
-            new Topping(new Ingredient("Ham", 0.0), Money.of(2.00))
+            new Topping("Tomato Sauce", Money.of(0.50)),
+            new Topping("Mozzarella", Money.of(1.50)),
+            new Topping("Pepperoni", Money.of(2.00)),
+            new Topping("Sausage", Money.of(2.00)),
+            new Topping("Bacon", Money.of(2.00)),
+            new Topping("Ham", Money.of(2.00))
         ));
     }
 
+    /**
+     * Собирает шаблоны пицц для всех рецептов и размеров
+     */
+    private static void initializePrototypes() {
+        for (Map.Entry<PizzaType, PizzaRecipe> entry : recipes.entrySet()) {
+            PizzaRecipe recipe = entry.getValue();
+            Pizza[] bySize = new Pizza[PizzaSize.values().length];
+            for (PizzaSize size : PizzaSize.values()) {
+                PizzaBuilder builder = new PizzaBuilder()
+                    .withName(recipe.name)
+                    .withDescription(recipe.description)
+                    .withSize(size)
+                    .withDoughType(recipe.doughType)
+                    .withBakeLevel(BakeLevel.NORMAL)
+                    .withBasePrice(recipe.basePrice);
+                for (Topping topping : recipe.toppings) {
+                    builder.addTopping(topping);
+                }
+                Pizza prototype = builder.build();
+                prototype.getPrice(); // рассчитываем цену заранее, копии ее унаследуют
+                bySize[size.ordinal()] = prototype;
+            }
+            prototypes.put(entry.getKey(), bySize);
+        }
+    }
+
     /**
      * Внутренний класс для хранения рецепта
      */
@@ -162,6 +219,8 @@ public class PizzaFactory {
         final DoughType doughType;
         final Money basePrice;
         final Topping[] toppings;
+        final short[] toppingOrdinals;
+        final long[] sizedBaseCents; // база с учетом размера, индекс - PizzaSize.ordinal()
 
         PizzaRecipe(String name, String description, DoughType doughType,
                    Money basePrice, Topping... toppings) {
@@ -170,6 +229,14 @@ public class PizzaFactory {
             this.doughType = doughType;
             this.basePrice = basePrice;
             this.toppings = toppings;
+            this.toppingOrdinals = new short[toppings.length];
+            for (int i = 0; i < toppings.length; i++) {
+                toppingOrdinals[i] = (short) ToppingRegistry.intern(toppings[i]).getOrdinal();
+            }
+            this.sizedBaseCents = new long[PizzaSize.values().length];
+            for (PizzaSize size : PizzaSize.values()) {
+                sizedBaseCents[size.ordinal()] = PizzaPricing.sizedBaseCents(basePrice.getMinorUnits(), size);
+            }
         }
     }
 }
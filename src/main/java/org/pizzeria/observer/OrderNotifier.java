@@ -2,20 +2,89 @@ package org.pizzeria.observer;
 
 import org.pizzeria.domain.order.Order;
 
-import java.util.ArrayList;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
 
 /**
  * Уведомитель для заказов.
  * Управляет списком наблюдателей и рассылает уведомления.
+ *
+ * По умолчанию наблюдатели вызываются синхронно в потоке вызывающего.
+ * В асинхронном режиме события передаются наблюдателям на заданном Executor,
+ * и вызывающий (например, OrderService.createOrder) не ждет медленных
+ * наблюдателей (email, SMS). События одного заказа доставляются строго
+ * в порядке отправки: каждое следующее ставится в цепочку за предыдущим;
+ * события разных заказов доставляются параллельно. Наблюдатель получает
+ * снимок заказа (Order.snapshot()) на момент отправки, поэтому отложенное
+ * событие сообщает тот статус, с которым было отправлено. Если executor
+ * отклоняет задачу, событие доставляется в потоке, который ее ставил.
  */
-public class OrderNotifier {
+public class OrderNotifier implements AutoCloseable {
     private final List<OrderObserver> observers;
+    private final Executor executor; // null - синхронная доставка
+    private final boolean ownsExecutor;
+    // Последнее недоставленное событие каждого заказа
+    private final Map<String, CompletableFuture<Void>> tails;
+    private volatile boolean closed;
 
     public OrderNotifier() {
+        this(null, false);
+    }
+
+    /**
+     * Асинхронный уведомитель на переданном executor (жизненным циклом executor управляет вызывающий)
+     */
+    public OrderNotifier(Executor executor) {
+        this(requireExecutor(executor), false);
+    }
+
+    private OrderNotifier(Executor executor, boolean ownsExecutor) {
         // CopyOnWriteArrayList для thread-safety
         this.observers = new CopyOnWriteArrayList<>();
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+        this.tails = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Асинхронный уведомитель с собственным пулом из threads фоновых потоков;
+     * пул останавливается в close()
+     */
+    public static OrderNotifier async(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Thread count must be positive");
+        }
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "order-notifier-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        return new OrderNotifier(pool, true);
+    }
+
+    private static Executor requireExecutor(Executor executor) {
+        if (executor == null) {
+            throw new IllegalArgumentException("Executor cannot be null");
+        }
+        return executor;
+    }
+
+    public boolean isAsync() {
+        return executor != null;
     }
 
     /**
@@ -55,62 +124,134 @@ public class OrderNotifier {
      * Уведомляет об изменении статуса заказа
      */
     public void notifyOrderStatusChanged(Order order) {
-        if (order == null) {
-            throw new IllegalArgumentException("Order cannot be null");
-        }
-        for (OrderObserver observer : observers) {
-            try {
-                observer.onOrderStatusChanged(order);
-            } catch (Exception e) {
-                // Логируем ошибку, но продолжаем уведомлять других
-                System.err.println("Error notifying observer: " + e.getMessage());
-            }
-        }
+        dispatch(order, OrderObserver::onOrderStatusChanged);
     }
 
     /**
      * Уведомляет о создании заказа
      */
     public void notifyOrderCreated(Order order) {
-        if (order == null) {
-            throw new IllegalArgumentException("Order cannot be null");
-        }
-        for (OrderObserver observer : observers) {
-            try {
-                observer.onOrderCreated(order);
-            } catch (Exception e) {
-                System.err.println("Error notifying observer: " + e.getMessage());
-            }
-        }
+        dispatch(order, OrderObserver::onOrderCreated);
     }
 
     /**
      * Уведомляет об отмене заказа
      */
     public void notifyOrderCancelled(Order order) {
+        dispatch(order, OrderObserver::onOrderCancelled);
+    }
+
+    /**
+     * Уведомляет о завершении заказа
+     */
+    public void notifyOrderCompleted(Order order) {
+        dispatch(order, OrderObserver::onOrderCompleted);
+    }
+
+    /**
+     * Количество заказов, события которых еще не доставлены
+     */
+    public int getPendingOrderCount() {
+        return tails.size();
+    }
+
+    /**
+     * Ждет доставки всех уже отправленных событий
+     */
+    public void flush() {
+        awaitPending().join();
+    }
+
+    /**
+     * Ждет доставки всех уже отправленных событий не дольше timeout
+     *
+     * @return true, если все события доставлены
+     */
+    public boolean flush(Duration timeout) throws InterruptedException {
+        try {
+            awaitPending().get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            return false;
+        } catch (ExecutionException e) {
+            return true; // ошибки наблюдателей уже залогированы, цепочки не завершаются с ошибкой
+        }
+    }
+
+    /**
+     * Доставляет оставшиеся события и останавливает собственный пул.
+     * События, отправленные после закрытия, доставляются синхронно, но не раньше
+     * еще не доставленных событий того же заказа.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        // Цепочка удаляется из tails до завершения ее future, поэтому каждый проход
+        // ждет только недоставленные события; повторяем для событий, отправленных во время закрытия
+        CompletableFuture<?>[] pending = tails.values().toArray(new CompletableFuture<?>[0]);
+        while (pending.length > 0) {
+            CompletableFuture.allOf(pending).join();
+            pending = tails.values().toArray(new CompletableFuture<?>[0]);
+        }
+        if (ownsExecutor) {
+            ((ExecutorService) executor).shutdown();
+        }
+    }
+
+    private CompletableFuture<Void> awaitPending() {
+        return CompletableFuture.allOf(tails.values().toArray(new CompletableFuture<?>[0]));
+    }
+
+    private void dispatch(Order order, BiConsumer<OrderObserver, Order> event) {
         if (order == null) {
             throw new IllegalArgumentException("Order cannot be null");
         }
-        for (OrderObserver observer : observers) {
+        if (executor == null) {
+            deliver(order, event);
+            return;
+        }
+        String orderId = order.getId();
+        Order snapshot = order.snapshot();
+        // После закрытия событие доставляется в потоке, который его отправил
+        // (или доставил предыдущее событие заказа), а не на executor
+        Executor target = closed ? Runnable::run : this::execute;
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        Runnable task = () -> {
             try {
-                observer.onOrderCancelled(order);
-            } catch (Exception e) {
-                System.err.println("Error notifying observer: " + e.getMessage());
+                deliver(snapshot, event);
+            } finally {
+                // Цепочка заказа удаляется до завершения future, чтобы flush() видел пустую очередь
+                tails.remove(orderId, future);
+                future.complete(null);
             }
+        };
+        // Запуск - вне операции над картой, т.к. при отказе executor событие доставляется сразу
+        CompletableFuture<Void> previous = tails.put(orderId, future);
+        if (previous == null) {
+            target.execute(task);
+        } else {
+            previous.whenComplete((result, error) -> target.execute(task));
         }
     }
 
     /**
-     * Уведомляет о завершении заказа
+     * Передает задачу executor; если он остановлен снаружи, выполняет ее
+     * в текущем потоке, чтобы событие не потерялось
      */
-    public void notifyOrderCompleted(Order order) {
-        if (order == null) {
-            throw new IllegalArgumentException("Order cannot be null");
+    private void execute(Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            task.run();
         }
+    }
+
+    private void deliver(Order order, BiConsumer<OrderObserver, Order> event) {
         for (OrderObserver observer : observers) {
             try {
-                observer.onOrderCompleted(order);
+                event.accept(observer, order);
             } catch (Exception e) {
+                // Логируем ошибку, но продолжаем уведомлять других
                 System.err.println("Error notifying observer: " + e.getMessage());
             }
         }
@@ -0,0 +1,257 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.common.MenuCategory;
+import org.pizzeria.domain.menu.MenuItem;
+import org.pizzeria.domain.order.Order;
+import org.pizzeria.domain.order.OrderItem;
+import org.pizzeria.observer.OrderObserver;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Доска "хиты продаж" за текущий час и текущий день.
+ * Подписывается на OrderNotifier и учитывает позиции завершенных заказов.
+ *
+ * Частоты считаются count-min sketch, а K лидеров (общих и по каждой категории)
+ * хранятся в ограниченных упорядоченных списках, поэтому память не зависит
+ * от числа разных позиций, а выборка лидеров - O(K). Окна переключаются
+ * атомарной заменой ссылки на новое окно: учет продаж при этом не
+ * останавливается, завершенное окно остается доступным для чтения
+ * до следующего переключения.
+ *
+ * Продажа относится к окну по времени завершения заказа, а не по времени
+ * доставки события, поэтому запоздавшее (асинхронное) событие попадает
+ * в свое окно; продажи старше предыдущего окна не учитываются.
+ */
+public class BestSellerService implements OrderObserver {
+    private static final int DEFAULT_CAPACITY = 20;
+    private static final int SKETCH_DEPTH = 4;
+    private static final int SKETCH_WIDTH = 4096;
+
+    /**
+     * Окно подсчета
+     */
+    public enum Window {
+        HOUR(ChronoUnit.HOURS),
+        DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Window(ChronoUnit unit) {
+            this.unit = unit;
+        }
+    }
+
+    private final Clock clock;
+    private final int capacity;
+    private final Map<Window, AtomicReference<Bucket>> current;
+    private final Map<Window, AtomicReference<Bucket>> previous;
+
+    public BestSellerService(int capacity, Clock clock) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        this.clock = clock;
+        this.capacity = capacity;
+        this.current = new EnumMap<>(Window.class);
+        this.previous = new EnumMap<>(Window.class);
+        for (Window window : Window.values()) {
+            current.put(window, new AtomicReference<>(newBucket(window, clock.instant())));
+            previous.put(window, new AtomicReference<>());
+        }
+    }
+
+    public BestSellerService() {
+        this(DEFAULT_CAPACITY, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Учитывает продажу позиции во всех окнах
+     */
+    public void record(MenuItem item, int quantity) {
+        record(item, quantity, clock.instant());
+    }
+
+    /**
+     * Учитывает продажу, совершенную в момент soldAt
+     */
+    public void record(MenuItem item, int quantity, Instant soldAt) {
+        if (item == null || quantity <= 0 || soldAt == null) {
+            return;
+        }
+        String key = ProductKeys.of(item);
+        for (Window window : Window.values()) {
+            Bucket bucket = bucketContaining(window, soldAt);
+            if (bucket != null) {
+                bucket.add(key, item, quantity);
+            }
+        }
+    }
+
+    /**
+     * Учитывает все позиции заказа по времени его завершения
+     */
+    public void recordOrder(Order order) {
+        LocalDateTime completedAt = order.getCompletedAt();
+        // Временные метки заказа - местное время системы (LocalDateTime.now())
+        Instant soldAt = completedAt != null
+            ? completedAt.atZone(ZoneId.systemDefault()).toInstant()
+            : clock.instant();
+        for (OrderItem item : order.getItems()) {
+            record(item.getMenuItem(), item.getQuantity(), soldAt);
+        }
+    }
+
+    /**
+     * Лидеры продаж текущего окна по убыванию оценки
+     */
+    public List<BestSeller> getTop(Window window, int limit) {
+        return bucketFor(window, clock.instant()).overall.top(limit);
+    }
+
+    public List<BestSeller> getTop(Window window, MenuCategory category, int limit) {
+        return bucketFor(window, clock.instant()).byCategory.get(category).top(limit);
+    }
+
+    /**
+     * Лидеры продаж предыдущего (завершенного) окна
+     */
+    public List<BestSeller> getPreviousTop(Window window, int limit) {
+        bucketFor(window, clock.instant());
+        Bucket bucket = previous.get(window).get();
+        return bucket != null ? bucket.overall.top(limit) : List.of();
+    }
+
+    /**
+     * Оценка числа продаж позиции в текущем окне (не меньше настоящего значения)
+     */
+    public long estimateSales(Window window, MenuItem item) {
+        return bucketFor(window, clock.instant()).sketch.estimate(ProductKeys.of(item));
+    }
+
+    @Override
+    public void onOrderCompleted(Order order) {
+        recordOrder(order);
+    }
+
+    @Override
+    public void onOrderStatusChanged(Order order) {
+    }
+
+    @Override
+    public void onOrderCreated(Order order) {
+    }
+
+    @Override
+    public void onOrderCancelled(Order order) {
+    }
+
+    /**
+     * Возвращает окно, в которое попадает момент now, переключая окна при необходимости
+     */
+    private Bucket bucketFor(Window window, Instant now) {
+        AtomicReference<Bucket> reference = current.get(window);
+        Bucket bucket = reference.get();
+        while (!now.isBefore(bucket.end)) {
+            Bucket next = newBucket(window, now);
+            if (reference.compareAndSet(bucket, next)) {
+                // Предыдущим считается только окно, непосредственно предшествующее текущему
+                previous.get(window).set(bucket.end.equals(next.start) ? bucket : null);
+                return next;
+            }
+            bucket = reference.get();
+        }
+        return bucket;
+    }
+
+    /**
+     * Окно, в которое попадает момент soldAt: текущее (с переключением, если момент
+     * уже за его концом) или предыдущее; null - продажа старше предыдущего окна
+     */
+    private Bucket bucketContaining(Window window, Instant soldAt) {
+        Bucket bucket = bucketFor(window, soldAt);
+        if (!soldAt.isBefore(bucket.start)) {
+            return bucket;
+        }
+        Bucket before = previous.get(window).get();
+        if (before != null && !soldAt.isBefore(before.start) && soldAt.isBefore(before.end)) {
+            return before;
+        }
+        return null;
+    }
+
+    /**
+     * Окно считается по местному времени: при переходе на летнее или зимнее время
+     * день длится 23 или 25 часов и заканчивается в следующую местную полночь
+     */
+    private Bucket newBucket(Window window, Instant now) {
+        ZonedDateTime start = ZonedDateTime.ofInstant(now, clock.getZone()).truncatedTo(window.unit);
+        return new Bucket(start.toInstant(), start.plus(1, window.unit).toInstant(), capacity);
+    }
+
+    /**
+     * Статистика одного окна
+     */
+    private static final class Bucket {
+        final Instant start;
+        final Instant end;
+        final CountMinSketch sketch;
+        final TopKList overall;
+        final Map<MenuCategory, TopKList> byCategory;
+
+        Bucket(Instant start, Instant end, int capacity) {
+            this.start = start;
+            this.end = end;
+            this.sketch = new CountMinSketch(SKETCH_DEPTH, SKETCH_WIDTH);
+            this.overall = new TopKList(capacity);
+            this.byCategory = new EnumMap<>(MenuCategory.class);
+            for (MenuCategory category : MenuCategory.values()) {
+                byCategory.put(category, new TopKList(capacity));
+            }
+        }
+
+        void add(String key, MenuItem item, int quantity) {
+            long estimate = sketch.add(key, quantity);
+            overall.offer(key, item, estimate);
+            byCategory.get(item.getCategory()).offer(key, item, estimate);
+        }
+    }
+
+    /**
+     * Позиция и оценка числа ее продаж в окне
+     */
+    public static final class BestSeller {
+        private final MenuItem item;
+        private final long count;
+
+        BestSeller(MenuItem item, long count) {
+            this.item = item;
+            this.count = count;
+        }
+
+        public MenuItem getItem() {
+            return item;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s x%d", item.getName(), count);
+        }
+    }
+}
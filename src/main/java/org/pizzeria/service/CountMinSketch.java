@@ -0,0 +1,78 @@
+package org.pizzeria.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Count-min sketch: приближенный счетчик частот с фиксированной памятью.
+ * Оценка никогда не меньше настоящего значения и превышает его
+ * не более чем на долю от общего числа событий, зависящую от ширины таблицы.
+ *
+ * Ячейка строки i выбирается по h1 + i * h2, где h1 и h2 - две половины
+ * 64-битного хеша символов ключа (а не String.hashCode()), поэтому ключи
+ * с одинаковым hashCode не совпадают во всех строках сразу.
+ *
+ * Увеличение счетчиков выполняется без блокировок.
+ */
+final class CountMinSketch {
+    private static final int MAX_DEPTH = 16;
+
+    private final int depth;
+    private final int mask;
+    private final AtomicLongArray cells;
+
+    CountMinSketch(int depth, int width) {
+        if (depth <= 0 || depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Sketch depth must be between 1 and " + MAX_DEPTH);
+        }
+        if (width <= 0 || Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Sketch width must be a power of two");
+        }
+        this.depth = depth;
+        this.mask = width - 1;
+        this.cells = new AtomicLongArray(depth * width);
+    }
+
+    /**
+     * Увеличивает счетчик ключа и возвращает новую оценку его частоты
+     */
+    long add(String key, long count) {
+        long hash = hash64(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, cells.addAndGet(cell(row, hash), count));
+        }
+        return estimate;
+    }
+
+    long estimate(String key) {
+        long hash = hash64(key);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, cells.get(cell(row, hash)));
+        }
+        return estimate;
+    }
+
+    private int cell(int row, long hash) {
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1; // нечетный шаг - разные строки не схлопываются в одну ячейку
+        return row * (mask + 1) + ((h1 + row * h2) & mask);
+    }
+
+    /**
+     * FNV-1a по символам ключа с финальным перемешиванием из MurmurHash3 (fmix64)
+     */
+    private static long hash64(String key) {
+        long h = 0xCBF29CE484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            h ^= key.charAt(i);
+            h *= 0x100000001B3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -3,6 +3,7 @@ package org.pizzeria.service;
 import org.pizzeria.domain.common.Address;
 import org.pizzeria.domain.common.DeliveryStatus;
 import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.common.MoneyAccumulator;
 import org.pizzeria.domain.delivery.Delivery;
 import org.pizzeria.domain.delivery.DeliveryRoute;
 import org.pizzeria.domain.order.Order;
@@ -188,6 +189,25 @@ public class DeliveryService {
         return findDeliveriesByStatus(DeliveryStatus.PENDING);
     }
 
+    /**
+     * Считает сумму стоимостей всех доставок
+     */
+    public Money calculateTotalDeliveryFees() {
+        return deliveries.stream()
+            .map(Delivery::getDeliveryFee)
+            .collect(MoneyAccumulator.summing());
+    }
+
+    /**
+     * Считает сумму стоимостей доставок в указанном статусе
+     */
+    public Money calculateDeliveryFees(DeliveryStatus status) {
+        return deliveries.stream()
+            .filter(d -> d.getStatus() == status)
+            .map(Delivery::getDeliveryFee)
+            .collect(MoneyAccumulator.summing());
+    }
+
     /**
      * Возвращает все доставки
      */
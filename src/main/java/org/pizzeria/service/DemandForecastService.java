@@ -0,0 +1,215 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.menu.Ingredient;
+import org.pizzeria.domain.menu.IngredientRegistry;
+import org.pizzeria.domain.order.Order;
+import org.pizzeria.observer.OrderObserver;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.Arrays;
+
+/**
+ * Прогноз потребности в ингредиентах по часам.
+ * Подписывается на OrderNotifier и раскладывает завершенные заказы
+ * на ингредиенты через BillOfMaterials.
+ *
+ * Для каждого ингредиента ведется аддитивная модель Хольта-Винтерса
+ * с сезонностью по часу недели (168 часов): уровень, тренд и сезонные
+ * поправки в примитивных массивах. Заказ только прибавляется к расходу
+ * текущего часа; модель обновляется один раз при закрытии часа.
+ */
+public class DemandForecastService implements OrderObserver {
+    public static final int HOURS_PER_WEEK = 168;
+    private static final double DEFAULT_ALPHA = 0.2;  // уровень
+    private static final double DEFAULT_BETA = 0.01;  // тренд
+    private static final double DEFAULT_GAMMA = 0.3;  // сезонность
+    private static final int EPOCH_HOUR_OF_WEEK = 3 * 24; // 1970-01-01 - четверг
+
+    private final double alpha;
+    private final double beta;
+    private final double gamma;
+    private final Clock clock;
+
+    // Индекс - порядковый номер ингредиента; сезонность - [ингредиент * 168 + час недели]
+    private double[] level = new double[0];
+    private double[] trend = new double[0];
+    private double[] seasonal = new double[0];
+    private double[] currentHourDemand = new double[0];
+    private long currentHour;
+    private long observedHours;
+
+    public DemandForecastService(double alpha, double beta, double gamma, Clock clock) {
+        if (!isSmoothing(alpha) || !isSmoothing(beta) || !isSmoothing(gamma)) {
+            throw new IllegalArgumentException("Smoothing factors must be in (0, 1]");
+        }
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        this.alpha = alpha;
+        this.beta = beta;
+        this.gamma = gamma;
+        this.clock = clock;
+        this.currentHour = hourIndex(clock.instant());
+    }
+
+    public DemandForecastService() {
+        this(DEFAULT_ALPHA, DEFAULT_BETA, DEFAULT_GAMMA, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Учитывает расход ингредиентов по заказу в текущем часе
+     */
+    public synchronized void recordOrder(Order order) {
+        advance();
+        int[] demand = order.getIngredientDemand();
+        ensureCapacity(demand.length);
+        for (int i = 0; i < demand.length; i++) {
+            currentHourDemand[i] += demand[i];
+        }
+    }
+
+    /**
+     * Прогноз суммарного расхода каждого ингредиента на ближайшие hours часов
+     *
+     * @return массив по порядковым номерам IngredientRegistry
+     */
+    public synchronized double[] forecastTotals(int hours) {
+        requirePositive(hours);
+        advance();
+        ensureCapacity(IngredientRegistry.size());
+        int ingredients = level.length;
+        double[] totals = new double[ingredients];
+        int firstHour = hourOfWeek(currentHour);
+        for (int i = 0; i < ingredients; i++) {
+            totals[i] = sum(i, firstHour, hours);
+        }
+        return totals;
+    }
+
+    /**
+     * Почасовой прогноз расхода ингредиента на ближайшие hours часов, начиная с текущего
+     */
+    public synchronized double[] forecast(Ingredient ingredient, int hours) {
+        requirePositive(hours);
+        advance();
+        int i = IngredientRegistry.intern(ingredient).getOrdinal();
+        ensureCapacity(i + 1);
+        int firstHour = hourOfWeek(currentHour);
+        double[] result = new double[hours];
+        for (int k = 0; k < hours; k++) {
+            result[k] = predict(i, k, (firstHour + k) % HOURS_PER_WEEK);
+        }
+        return result;
+    }
+
+    public synchronized double forecastTotal(Ingredient ingredient, int hours) {
+        requirePositive(hours);
+        advance();
+        int i = IngredientRegistry.intern(ingredient).getOrdinal();
+        ensureCapacity(i + 1);
+        return sum(i, hourOfWeek(currentHour), hours);
+    }
+
+    /**
+     * Количество закрытых часов, учтенных моделью
+     */
+    public synchronized long getObservedHours() {
+        return observedHours;
+    }
+
+    @Override
+    public void onOrderCompleted(Order order) {
+        recordOrder(order);
+    }
+
+    @Override
+    public void onOrderStatusChanged(Order order) {
+    }
+
+    @Override
+    public void onOrderCreated(Order order) {
+    }
+
+    @Override
+    public void onOrderCancelled(Order order) {
+    }
+
+    private double sum(int ingredient, int firstHour, int hours) {
+        double total = 0;
+        for (int k = 0; k < hours; k++) {
+            total += predict(ingredient, k, (firstHour + k) % HOURS_PER_WEEK);
+        }
+        return total;
+    }
+
+    /**
+     * Прогноз на час, отстоящий от текущего на k часов (k = 0 - текущий час)
+     */
+    private double predict(int ingredient, int k, int hourOfWeek) {
+        double value = level[ingredient] + (k + 1) * trend[ingredient]
+            + seasonal[ingredient * HOURS_PER_WEEK + hourOfWeek];
+        return Math.max(0.0, value);
+    }
+
+    /**
+     * Закрывает прошедшие часы. Сначала закрывается час, в котором копился расход,
+     * затем часы без заказов - с нулевым расходом; после простоя дольше недели
+     * из них обрабатывается только последняя неделя.
+     */
+    private void advance() {
+        long now = hourIndex(clock.instant());
+        if (now <= currentHour) {
+            return;
+        }
+        closeHour(hourOfWeek(currentHour));
+        long first = Math.max(currentHour + 1, now - HOURS_PER_WEEK);
+        for (long hour = first; hour < now; hour++) {
+            closeHour(hourOfWeek(hour));
+        }
+        currentHour = now;
+    }
+
+    private void closeHour(int hourOfWeek) {
+        for (int i = 0; i < level.length; i++) {
+            double observed = currentHourDemand[i];
+            int s = i * HOURS_PER_WEEK + hourOfWeek;
+            double previousLevel = level[i];
+            level[i] = alpha * (observed - seasonal[s]) + (1 - alpha) * (previousLevel + trend[i]);
+            trend[i] = beta * (level[i] - previousLevel) + (1 - beta) * trend[i];
+            seasonal[s] = gamma * (observed - level[i]) + (1 - gamma) * seasonal[s];
+        }
+        Arrays.fill(currentHourDemand, 0.0);
+        observedHours++;
+    }
+
+    private void ensureCapacity(int ingredients) {
+        if (ingredients <= level.length) {
+            return;
+        }
+        level = Arrays.copyOf(level, ingredients);
+        trend = Arrays.copyOf(trend, ingredients);
+        seasonal = Arrays.copyOf(seasonal, ingredients * HOURS_PER_WEEK);
+        currentHourDemand = Arrays.copyOf(currentHourDemand, ingredients);
+    }
+
+    private long hourIndex(Instant instant) {
+        long seconds = instant.getEpochSecond() + clock.getZone().getRules().getOffset(instant).getTotalSeconds();
+        return Math.floorDiv(seconds, 3600);
+    }
+
+    // 0 - понедельник 00:00
+    private static int hourOfWeek(long hourIndex) {
+        return (int) Math.floorMod(hourIndex + EPOCH_HOUR_OF_WEEK, (long) HOURS_PER_WEEK);
+    }
+
+    private static boolean isSmoothing(double factor) {
+        return factor > 0 && factor <= 1;
+    }
+
+    private static void requirePositive(int hours) {
+        if (hours <= 0) {
+            throw new IllegalArgumentException("Hours must be positive");
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package org.pizzeria.service;
+
+import java.util.Arrays;
+
+/**
+ * Разреженное отображение int -> double с открытой адресацией.
+ * Ключи - неотрицательные числа; значения хранятся в примитивных массивах
+ * без упаковки в Integer/Double.
+ *
+ * Не потокобезопасен.
+ */
+final class IntDoubleMap {
+    private static final int FREE = -1;
+    private static final int MIN_CAPACITY = 8;
+
+    private int[] keys;
+    private double[] values;
+    private int size;
+
+    IntDoubleMap() {
+        this(MIN_CAPACITY);
+    }
+
+    IntDoubleMap(int expectedSize) {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expectedSize * 2) {
+            capacity <<= 1;
+        }
+        allocate(capacity);
+    }
+
+    /**
+     * Прибавляет delta к значению ключа (отсутствующий ключ считается нулем)
+     */
+    void add(int key, double delta) {
+        int slot = find(key);
+        if (keys[slot] == key) {
+            values[slot] += delta;
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size * 2 > keys.length) {
+            rehash(keys.length << 1, null, 1.0, 0.0);
+        }
+    }
+
+    double get(int key) {
+        int slot = find(key);
+        return keys[slot] == key ? values[slot] : 0.0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Умножает все значения на factor и удаляет значения меньше threshold
+     */
+    void scale(double factor, double threshold) {
+        remap(null, factor, threshold);
+    }
+
+    /**
+     * Переносит ключи на новые номера, умножает значения на factor
+     * и удаляет значения меньше threshold
+     *
+     * @param mapping новый номер для каждого старого ключа (-1 - удалить ключ) или null без изменения номеров
+     */
+    void remap(int[] mapping, double factor, double threshold) {
+        rehash(keys.length, mapping, factor, threshold);
+        int capacity = MIN_CAPACITY;
+        while (capacity < size * 2) {
+            capacity <<= 1;
+        }
+        if (capacity < keys.length / 2) {
+            rehash(capacity, null, 1.0, 0.0);
+        }
+    }
+
+    // Обход по слотам: for (i = 0; i < capacity(); i++) if (keyAt(i) >= 0) ...
+    int capacity() {
+        return keys.length;
+    }
+
+    int keyAt(int slot) {
+        return keys[slot];
+    }
+
+    double valueAt(int slot) {
+        return values[slot];
+    }
+
+    private int find(int key) {
+        int mask = keys.length - 1;
+        int h = key * 0x9E3779B9;
+        int slot = (h ^ (h >>> 16)) & mask;
+        while (keys[slot] != FREE && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void rehash(int capacity, int[] mapping, double factor, double threshold) {
+        int[] oldKeys = keys;
+        double[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == FREE) {
+                continue;
+            }
+            int key = mapping != null ? mapping[oldKeys[i]] : oldKeys[i];
+            double value = oldValues[i] * factor;
+            if (key != FREE && value >= threshold) {
+                int slot = find(key);
+                keys[slot] = key;
+                values[slot] = value;
+                size++;
+            }
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, FREE);
+        values = new double[capacity];
+        size = 0;
+    }
+}
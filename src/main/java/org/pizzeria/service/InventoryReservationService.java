@@ -0,0 +1,142 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.menu.InventoryLedger;
+import org.pizzeria.domain.order.Order;
+import org.pizzeria.exception.OutOfStockException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Резервирование ингредиентов под заказы.
+ * Состав заказа раскладывается на ингредиенты по BillOfMaterials, и весь
+ * набор списывается из InventoryLedger атомарно по принципу "все или ничего".
+ *
+ * Резерв либо возвращается на склад (release - отмена или истечение срока
+ * ожидания оплаты), либо подтверждается (commit - заказ выполнен, продукты
+ * израсходованы). Переходы статусов и блокировки заказов координирует OrderService.
+ */
+public class InventoryReservationService {
+    private static final Duration DEFAULT_PAYMENT_TIMEOUT = Duration.ofMinutes(15);
+
+    private final Duration paymentTimeout;
+    private final Clock clock;
+    private final Map<String, Reservation> reservations;
+
+    public InventoryReservationService(Duration paymentTimeout, Clock clock) {
+        if (paymentTimeout == null || paymentTimeout.isNegative() || paymentTimeout.isZero()) {
+            throw new IllegalArgumentException("Payment timeout must be positive");
+        }
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        this.paymentTimeout = paymentTimeout;
+        this.clock = clock;
+        this.reservations = new ConcurrentHashMap<>();
+    }
+
+    public InventoryReservationService() {
+        this(DEFAULT_PAYMENT_TIMEOUT, Clock.systemUTC());
+    }
+
+    /**
+     * Резервирует ингредиенты под заказ (повторный вызов для того же заказа ничего не делает)
+     *
+     * @throws OutOfStockException если какого-то ингредиента не хватает; склад не изменяется
+     */
+    public void reserve(Order order) throws OutOfStockException {
+        if (reservations.containsKey(order.getId())) {
+            return;
+        }
+        Reservation reservation = expand(order, clock.instant());
+        InventoryLedger.consumeAll(reservation.ordinals, reservation.quantities);
+        if (reservations.putIfAbsent(order.getId(), reservation) != null) {
+            // Параллельный вызов уже зарезервировал - возвращаем свое
+            InventoryLedger.restoreAll(reservation.ordinals, reservation.quantities);
+        }
+    }
+
+    /**
+     * Возвращает зарезервированные ингредиенты на склад
+     *
+     * @return true, если у заказа был резерв
+     */
+    public boolean release(Order order) {
+        Reservation reservation = reservations.remove(order.getId());
+        if (reservation == null) {
+            return false;
+        }
+        InventoryLedger.restoreAll(reservation.ordinals, reservation.quantities);
+        return true;
+    }
+
+    /**
+     * Подтверждает расход зарезервированных ингредиентов
+     *
+     * @return true, если у заказа был резерв
+     */
+    public boolean commit(Order order) {
+        return reservations.remove(order.getId()) != null;
+    }
+
+    public boolean hasReservation(Order order) {
+        return reservations.containsKey(order.getId());
+    }
+
+    public int getReservationCount() {
+        return reservations.size();
+    }
+
+    public Duration getPaymentTimeout() {
+        return paymentTimeout;
+    }
+
+    /**
+     * Проверяет, что резерв заказа старше срока ожидания оплаты
+     */
+    public boolean isExpired(Order order) {
+        Reservation reservation = reservations.get(order.getId());
+        return reservation != null
+            && reservation.createdAt.isBefore(clock.instant().minus(paymentTimeout));
+    }
+
+    /**
+     * Раскладывает заказ на ингредиенты с суммированием одинаковых
+     */
+    private static Reservation expand(Order order, Instant now) {
+        int[] demand = order.getIngredientDemand();
+        int distinct = 0;
+        for (int quantity : demand) {
+            if (quantity > 0) {
+                distinct++;
+            }
+        }
+        int[] ordinals = new int[distinct];
+        int[] quantities = new int[distinct];
+        for (int ingredient = 0, i = 0; i < distinct; ingredient++) {
+            if (demand[ingredient] > 0) {
+                ordinals[i] = ingredient;
+                quantities[i++] = demand[ingredient];
+            }
+        }
+        return new Reservation(ordinals, quantities, now);
+    }
+
+    /**
+     * Зарезервированные количества по номерам ингредиентов
+     */
+    private static final class Reservation {
+        final int[] ordinals;
+        final int[] quantities;
+        final Instant createdAt;
+
+        Reservation(int[] ordinals, int[] quantities, Instant createdAt) {
+            this.ordinals = ordinals;
+            this.quantities = quantities;
+            this.createdAt = createdAt;
+        }
+    }
+}
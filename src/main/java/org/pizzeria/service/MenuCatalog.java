@@ -0,0 +1,229 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.common.MenuCategory;
+import org.pizzeria.domain.menu.IngredientRegistry;
+import org.pizzeria.domain.menu.MenuAvailability;
+import org.pizzeria.domain.menu.MenuItem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Каталог меню.
+ * Хранит текущую версию меню - неизменяемый MenuSnapshot с индексами:
+ * по ID, по категории, список доступных позиций и префиксное дерево названий.
+ *
+ * Изменения вносятся через черновик (edit() ... publish()) и публикуются
+ * атомарной заменой снимка с новым номером версии (copy-on-write).
+ * Чтение не требует блокировок: current() закрепляет версию,
+ * которая не меняется, пока вызывающий с ней работает.
+ *
+ * Текущая доступность позиций (с учетом закончившихся ингредиентов)
+ * хранится в битовой карте MenuAvailability; каталог подписан на изменения
+ * запасов в IngredientRegistry. Реестр статический, поэтому ненужный каталог
+ * следует закрыть (close()), иначе реестр удерживает его битовую карту.
+ */
+public class MenuCatalog implements AutoCloseable {
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+
+    private final MenuAvailability availability;
+    private volatile MenuSnapshot current;
+    private volatile AvailableView availableView;
+
+    public MenuCatalog() {
+        this.current = MenuSnapshot.build(0, List.of());
+        this.availability = new MenuAvailability();
+        IngredientRegistry.addStockListener(availability);
+    }
+
+    /**
+     * Отписывает каталог от изменений запасов. Каталог остается доступен
+     * для чтения, но доступность позиций перестает следить за запасами.
+     */
+    @Override
+    public void close() {
+        IngredientRegistry.removeStockListener(availability);
+    }
+
+    /**
+     * Текущая опубликованная версия меню
+     */
+    public MenuSnapshot current() {
+        return current;
+    }
+
+    /**
+     * Создает черновик на основе текущей версии меню
+     */
+    public MenuDraft edit() {
+        return new MenuDraft(this, current);
+    }
+
+    /**
+     * Публикует черновик. Изменения применяются под блокировкой каталога,
+     * после чего новая версия становится видна читателям одной записью.
+     */
+    synchronized MenuSnapshot publish(MenuDraft draft) {
+        if (draft.getCatalog() != this) {
+            throw new IllegalArgumentException("Menu draft belongs to another catalog");
+        }
+        MenuSnapshot base = current;
+        if (draft.getBaseVersion() != base.getVersion()) {
+            throw new IllegalStateException(String.format(
+                "Menu was changed since the draft was created (draft version %d, current version %d)",
+                draft.getBaseVersion(), base.getVersion()));
+        }
+        MenuSnapshot published = MenuSnapshot.build(base.getVersion() + 1, draft.apply());
+        availability.rebuild(published.getAllItems());
+        current = published;
+        return published;
+    }
+
+    /**
+     * Добавляет позицию в каталог (или заменяет позицию с тем же ID)
+     */
+    public synchronized void add(MenuItem item) {
+        edit().add(item).publish();
+    }
+
+    /**
+     * Добавляет несколько позиций одной публикацией
+     */
+    public synchronized void addAll(Collection<? extends MenuItem> newItems) {
+        edit().addAll(newItems).publish();
+    }
+
+    /**
+     * Удаляет позицию из каталога
+     */
+    public synchronized boolean remove(String itemId) {
+        if (!current.contains(itemId)) {
+            return false;
+        }
+        edit().remove(itemId).publish();
+        return true;
+    }
+
+    /**
+     * Меняет доступность позиции и публикует новую версию меню
+     */
+    public synchronized void setAvailable(String itemId, boolean available) {
+        edit().setAvailable(itemId, available).publish();
+    }
+
+    /**
+     * Публикует новую версию, если доступность менялась в обход каталога
+     */
+    public synchronized void refreshAvailability() {
+        republish();
+    }
+
+    /**
+     * Публикует новую версию меню с текущими ценами и доступностью позиций
+     * (например, после изменения цен ингредиентов)
+     */
+    public synchronized MenuSnapshot republish() {
+        return edit().publish();
+    }
+
+    public Optional<MenuItem> findById(String itemId) {
+        return current.findById(itemId);
+    }
+
+    public List<MenuItem> findByCategory(MenuCategory category) {
+        return current.findByCategory(category);
+    }
+
+    /**
+     * Битовая карта доступности позиций меню
+     */
+    public MenuAvailability getAvailability() {
+        return availability;
+    }
+
+    /**
+     * Доступна ли позиция для заказа (проверка одного бита)
+     */
+    public boolean isAvailable(String itemId) {
+        return availability.isAvailable(itemId);
+    }
+
+    /**
+     * Возвращает позиции, доступные для заказа.
+     * Список пересчитывается только после публикации меню или изменения доступности.
+     */
+    public List<MenuItem> getAvailableItems() {
+        return availableView().all;
+    }
+
+    public List<MenuItem> getAvailableItems(MenuCategory category) {
+        List<MenuItem> result = availableView().byCategory.get(category);
+        return result != null ? result : List.of();
+    }
+
+    /**
+     * Регистронезависимый поиск по началу названия или любого слова в нем
+     */
+    public List<MenuItem> searchByName(String prefix) {
+        return searchByName(prefix, DEFAULT_SEARCH_LIMIT);
+    }
+
+    public List<MenuItem> searchByName(String prefix, int limit) {
+        return current.searchByName(prefix, limit);
+    }
+
+    public List<MenuItem> getAllItems() {
+        return current.getAllItems();
+    }
+
+    public int size() {
+        return current.size();
+    }
+
+    private AvailableView availableView() {
+        MenuSnapshot snapshot = current;
+        long version = availability.getVersion();
+        AvailableView view = availableView;
+        if (view != null && view.snapshot == snapshot && view.availabilityVersion == version) {
+            return view;
+        }
+        view = AvailableView.build(snapshot, availability, version);
+        availableView = view;
+        return view;
+    }
+
+    /**
+     * Доступные позиции для пары (версия меню, версия битовой карты)
+     */
+    private static final class AvailableView {
+        final MenuSnapshot snapshot;
+        final long availabilityVersion;
+        final List<MenuItem> all;
+        final Map<MenuCategory, List<MenuItem>> byCategory;
+
+        private AvailableView(MenuSnapshot snapshot, long availabilityVersion, List<MenuItem> all,
+                              Map<MenuCategory, List<MenuItem>> byCategory) {
+            this.snapshot = snapshot;
+            this.availabilityVersion = availabilityVersion;
+            this.all = all;
+            this.byCategory = byCategory;
+        }
+
+        static AvailableView build(MenuSnapshot snapshot, MenuAvailability availability, long version) {
+            List<MenuItem> all = new ArrayList<>();
+            Map<MenuCategory, List<MenuItem>> byCategory = new EnumMap<>(MenuCategory.class);
+            for (MenuItem item : snapshot.getAllItems()) {
+                if (availability.isAvailable(item.getId())) {
+                    all.add(item);
+                    byCategory.computeIfAbsent(item.getCategory(), c -> new ArrayList<>()).add(item);
+                }
+            }
+            byCategory.replaceAll((category, list) -> List.copyOf(list));
+            return new AvailableView(snapshot, version, List.copyOf(all), byCategory);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.menu.MenuItem;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Черновик изменений меню.
+ * Менеджер накапливает изменения (состав, цены, доступность), не затрагивая
+ * текущую версию меню, и публикует их одной операцией через publish().
+ *
+ * Позиции с измененной ценой или доступностью публикуются как новые объекты
+ * с тем же ID (MenuItem.revise); объекты прежних версий не меняются.
+ *
+ * Черновик не потокобезопасен и предназначен для одного редактора.
+ * Публикация отклоняется, если с момента создания черновика меню уже изменилось.
+ */
+public class MenuDraft {
+    private final MenuCatalog catalog;
+    private final long baseVersion;
+    private final Map<String, MenuItem> items;
+    private final Map<String, Money> prices;
+    private final Map<String, Boolean> availability;
+    private boolean published;
+
+    MenuDraft(MenuCatalog catalog, MenuSnapshot base) {
+        this.catalog = catalog;
+        this.baseVersion = base.getVersion();
+        this.items = new LinkedHashMap<>();
+        for (MenuItem item : base.getAllItems()) {
+            items.put(item.getId(), item);
+        }
+        this.prices = new LinkedHashMap<>();
+        this.availability = new LinkedHashMap<>();
+    }
+
+    /**
+     * Версия меню, на основе которой создан черновик
+     */
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    /**
+     * Добавляет позицию (или заменяет позицию с тем же ID)
+     */
+    public MenuDraft add(MenuItem item) {
+        checkNotPublished();
+        if (item == null) {
+            throw new IllegalArgumentException("Menu item cannot be null");
+        }
+        items.put(item.getId(), item);
+        return this;
+    }
+
+    public MenuDraft addAll(Collection<? extends MenuItem> newItems) {
+        for (MenuItem item : newItems) {
+            add(item);
+        }
+        return this;
+    }
+
+    public MenuDraft remove(String itemId) {
+        checkNotPublished();
+        items.remove(itemId);
+        prices.remove(itemId);
+        availability.remove(itemId);
+        return this;
+    }
+
+    /**
+     * Устанавливает новую цену позиции.
+     * Для пиццы это базовая цена, итоговая цена учитывает размер, тесто и топпинги.
+     */
+    public MenuDraft setPrice(String itemId, Money price) {
+        checkNotPublished();
+        if (price == null) {
+            throw new IllegalArgumentException("Price cannot be null");
+        }
+        require(itemId);
+        prices.put(itemId, price);
+        return this;
+    }
+
+    public MenuDraft setAvailable(String itemId, boolean available) {
+        checkNotPublished();
+        require(itemId);
+        availability.put(itemId, available);
+        return this;
+    }
+
+    public boolean contains(String itemId) {
+        return items.containsKey(itemId);
+    }
+
+    /**
+     * Публикует черновик как новую версию меню
+     */
+    public MenuSnapshot publish() {
+        checkNotPublished();
+        MenuSnapshot snapshot = catalog.publish(this);
+        published = true;
+        return snapshot;
+    }
+
+    /**
+     * Собирает позиции новой версии: измененные позиции заменяются копиями,
+     * ни черновик, ни существующие объекты меню не изменяются
+     * (вызывается каталогом под его блокировкой)
+     */
+    Collection<MenuItem> apply() {
+        Set<String> changed = new HashSet<>(prices.keySet());
+        changed.addAll(availability.keySet());
+        Map<String, MenuItem> result = new LinkedHashMap<>(items);
+        for (String itemId : changed) {
+            MenuItem item = items.get(itemId);
+            Boolean available = availability.get(itemId);
+            result.put(itemId, item.revise(prices.get(itemId), available != null ? available : item.isAvailable()));
+        }
+        return result.values();
+    }
+
+    MenuCatalog getCatalog() {
+        return catalog;
+    }
+
+    private MenuItem require(String itemId) {
+        MenuItem item = itemId != null ? items.get(itemId) : null;
+        if (item == null) {
+            throw new IllegalArgumentException("Menu item not found: " + itemId);
+        }
+        return item;
+    }
+
+    private void checkNotPublished() {
+        if (published) {
+            throw new IllegalStateException("Menu draft has already been published");
+        }
+    }
+}
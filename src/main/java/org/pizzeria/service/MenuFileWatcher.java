@@ -0,0 +1,130 @@
+package org.pizzeria.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Следит за файлом меню через WatchService и перезагружает его при изменении.
+ * События, пришедшие в течение короткой паузы (редакторы часто пишут файл
+ * в несколько приемов), объединяются в одну перезагрузку.
+ *
+ * Перезагрузка выполняется в отдельном фоновом потоке; ошибка в файле
+ * не меняет меню и выводится в System.err.
+ */
+public class MenuFileWatcher implements AutoCloseable {
+    private static final long SETTLE_MILLIS = 100;
+
+    private final MenuLoader loader;
+    private final Path file;
+    private WatchService watchService;
+    private Thread thread;
+    private volatile MenuLoader.ReloadResult lastResult;
+    private volatile Exception lastError;
+
+    public MenuFileWatcher(MenuLoader loader, Path file) {
+        if (loader == null) {
+            throw new IllegalArgumentException("Loader cannot be null");
+        }
+        if (file == null) {
+            throw new IllegalArgumentException("Menu file cannot be null");
+        }
+        Path absolute = file.toAbsolutePath();
+        if (absolute.getParent() == null || absolute.getFileName() == null) {
+            throw new IllegalArgumentException("Menu file must be inside a directory: " + file);
+        }
+        this.loader = loader;
+        this.file = absolute;
+    }
+
+    /**
+     * Загружает файл и начинает следить за его изменениями
+     */
+    public synchronized void start() throws IOException {
+        if (thread != null) {
+            throw new IllegalStateException("Menu file watcher is already started");
+        }
+        lastResult = loader.reload(file);
+        watchService = file.getFileSystem().newWatchService();
+        file.getParent().register(watchService,
+            StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        thread = new Thread(this::watch, "menu-file-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Результат последней успешной загрузки
+     */
+    public MenuLoader.ReloadResult getLastResult() {
+        return lastResult;
+    }
+
+    /**
+     * Ошибка последней неудачной загрузки (null, если последняя загрузка успешна)
+     */
+    public Exception getLastError() {
+        return lastError;
+    }
+
+    private void watch() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                boolean changed = drain(key);
+                // Ждем, пока запись файла закончится, и собираем остальные события
+                WatchKey next;
+                while ((next = watchService.poll(SETTLE_MILLIS, TimeUnit.MILLISECONDS)) != null) {
+                    changed |= drain(next);
+                }
+                if (changed) {
+                    reload();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Наблюдение остановлено через close()
+        }
+    }
+
+    private boolean drain(WatchKey key) {
+        boolean changed = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                || file.getFileName().equals(event.context())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+
+    private void reload() {
+        try {
+            lastResult = loader.reload(file);
+            lastError = null;
+        } catch (IOException | RuntimeException e) {
+            lastError = e;
+            System.err.println("Failed to reload menu from " + file + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Останавливает наблюдение за файлом
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (thread == null) {
+            return;
+        }
+        thread.interrupt();
+        watchService.close();
+        thread = null;
+    }
+}
@@ -0,0 +1,425 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.common.DoughType;
+import org.pizzeria.domain.common.MenuCategory;
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.common.PizzaSize;
+import org.pizzeria.domain.menu.Dessert;
+import org.pizzeria.domain.menu.Drink;
+import org.pizzeria.domain.menu.MenuItem;
+import org.pizzeria.domain.menu.Pizza;
+import org.pizzeria.domain.menu.Topping;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Загрузчик меню из CSV-файла.
+ * Файл читается потоково, построчно, без загрузки всего документа в память;
+ * каждая строка сравнивается с текущей версией меню, и в черновик попадает
+ * только разница: новые, удаленные, переоцененные и измененные позиции.
+ * Изменения публикуются одной новой версией каталога, поэтому чтение меню
+ * и оформление заказов во время загрузки не блокируются.
+ *
+ * Формат строки (пустые строки и строки с # пропускаются, первая строка
+ * может быть заголовком):
+ * <pre>
+ * id,category,name,price,available,...
+ * p-1,PIZZA,Margherita,8.99,true,MEDIUM,TRADITIONAL,Mozzarella:1.50|Basil:0.50
+ * d-1,DRINK,Coca-Cola,2.50,true,330
+ * s-1,DESSERT,Tiramisu,5.99,true,150
+ * </pre>
+ * Для пиццы цена - базовая, дополнительные поля - размер, тесто и топпинги;
+ * для напитка - объем в мл, для десерта - вес в граммах.
+ *
+ * Удаляются только позиции, ранее загруженные этим загрузчиком:
+ * позиции, добавленные в каталог другим способом, не затрагиваются.
+ *
+ * Файл читается в два прохода. Первый только проверяет строки и уникальность
+ * ID, не обращаясь к глобальным реестрам ингредиентов и топпингов, и считает
+ * контрольную сумму. Второй проход выполняется, только если весь файл
+ * корректен: он создает объекты меню для новых и измененных позиций.
+ * Поэтому ошибочный файл не оставляет следов в реестрах. Если файл изменился
+ * между проходами (контрольные суммы не совпали), черновик не публикуется.
+ * В памяти держатся только ID позиций, а не разобранный документ.
+ */
+public class MenuLoader {
+    private static final int MAX_PUBLISH_ATTEMPTS = 3;
+
+    private final MenuCatalog catalog;
+    private final Set<String> loadedIds; // изменяется только под this
+
+    public MenuLoader(MenuCatalog catalog) {
+        if (catalog == null) {
+            throw new IllegalArgumentException("Catalog cannot be null");
+        }
+        this.catalog = catalog;
+        this.loadedIds = new HashSet<>();
+    }
+
+    /**
+     * Загружает файл и применяет разницу к каталогу.
+     * При ошибке в любой строке каталог остается без изменений.
+     */
+    public synchronized ReloadResult reload(Path file) throws IOException {
+        if (file == null) {
+            throw new IllegalArgumentException("Menu file cannot be null");
+        }
+        for (int attempt = 1; ; attempt++) {
+            MenuDraft draft = catalog.edit();
+            ReloadResult result = diff(file, draft);
+            if (!result.hasChanges()) {
+                loadedIds.retainAll(result.seenIds);
+                return result;
+            }
+            try {
+                result.version = draft.publish().getVersion();
+            } catch (IllegalStateException e) {
+                // Меню успели изменить параллельно - сравниваем заново с новой версией
+                if (attempt >= MAX_PUBLISH_ATTEMPTS) {
+                    throw e;
+                }
+                continue;
+            }
+            loadedIds.clear();
+            loadedIds.addAll(result.seenIds);
+            return result;
+        }
+    }
+
+    private ReloadResult diff(Path file, MenuDraft draft) throws IOException {
+        MenuSnapshot base = catalog.current();
+        ReloadResult result = new ReloadResult(base.getVersion());
+        // Первый проход: только проверка, объекты меню не создаются
+        long checksum = scan(file, (item, lineNumber) -> {
+            if (!result.seenIds.add(item.id)) {
+                throw new IllegalArgumentException(String.format(
+                    "Duplicate menu item id at line %d: %s", lineNumber, item.id));
+            }
+        });
+        // Второй проход: весь файл корректен - можно создавать объекты меню
+        long applied = scan(file, (item, lineNumber) -> apply(base, draft, item, result));
+        if (applied != checksum) {
+            throw new IllegalStateException("Menu file changed during reload: " + file);
+        }
+        for (String id : loadedIds) {
+            if (!result.seenIds.contains(id) && base.contains(id)) {
+                draft.remove(id);
+                result.removed.add(id);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Читает файл построчно и передает каждую разобранную позицию обработчику
+     *
+     * @return контрольная сумма прочитанных строк
+     */
+    private static long scan(Path file, LineHandler handler) throws IOException {
+        CRC32 checksum = new CRC32();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                checksum.update(line.getBytes(StandardCharsets.UTF_8));
+                checksum.update('\n');
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")
+                    || (lineNumber == 1 && trimmed.toLowerCase(Locale.ROOT).startsWith("id,"))) {
+                    continue;
+                }
+                handler.handle(parse(split(trimmed, lineNumber), lineNumber), lineNumber);
+            }
+        }
+        return checksum.getValue();
+    }
+
+    private static void apply(MenuSnapshot base, MenuDraft draft, ParsedItem loaded, ReloadResult result) {
+        String id = loaded.id;
+        Optional<MenuItem> found = base.findById(id);
+        if (found.isEmpty()) {
+            draft.add(loaded.create());
+            result.added.add(id);
+            return;
+        }
+        MenuItem existing = found.get();
+        if (!loaded.sameDefinition(existing)) {
+            draft.add(loaded.create());
+            result.updated.add(id);
+            return;
+        }
+        if (!priceOf(existing).equals(loaded.price)) {
+            draft.setPrice(id, loaded.price);
+            result.repriced.add(id);
+        }
+        if (existing.isAvailable() != loaded.available) {
+            draft.setAvailable(id, loaded.available);
+            result.updated.add(id);
+        }
+    }
+
+    /**
+     * Цена, которую задает файл: для пиццы базовая
+     */
+    private static Money priceOf(MenuItem item) {
+        return item instanceof Pizza ? ((Pizza) item).getBasePrice() : item.getPrice();
+    }
+
+    private static ParsedItem parse(List<String> fields, int lineNumber) {
+        if (fields.size() < 5) {
+            throw malformed(lineNumber, "expected at least 5 fields");
+        }
+        String id = fields.get(0);
+        String name = fields.get(2);
+        if (id.isEmpty() || name.isEmpty()) {
+            throw malformed(lineNumber, "id and name are required");
+        }
+        ParsedItem item = new ParsedItem(id, parseEnum(MenuCategory.class, fields.get(1), lineNumber), name,
+            parseMoney(fields.get(3), lineNumber), Boolean.parseBoolean(fields.get(4)));
+        switch (item.category) {
+            case PIZZA:
+                parsePizza(item, fields, lineNumber);
+                break;
+            case DRINK:
+            case DESSERT:
+                item.amount = parseInt(field(fields, 5, lineNumber), lineNumber);
+                break;
+            default:
+                throw malformed(lineNumber, "unsupported category " + item.category);
+        }
+        return item;
+    }
+
+    private static void parsePizza(ParsedItem item, List<String> fields, int lineNumber) {
+        item.size = parseEnum(PizzaSize.class, field(fields, 5, lineNumber), lineNumber);
+        item.dough = fields.size() > 6 && !fields.get(6).isEmpty()
+            ? parseEnum(DoughType.class, fields.get(6), lineNumber)
+            : DoughType.TRADITIONAL;
+        if (fields.size() > 7 && !fields.get(7).isEmpty()) {
+            for (String topping : fields.get(7).split("\\|")) {
+                int separator = topping.lastIndexOf(':');
+                String ingredient = separator > 0 ? topping.substring(0, separator).trim() : "";
+                if (ingredient.isEmpty()) {
+                    throw malformed(lineNumber, "topping must be ingredient:price");
+                }
+                item.toppingNames.add(ingredient);
+                item.toppingPrices.add(parseMoney(topping.substring(separator + 1).trim(), lineNumber));
+            }
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String text, int lineNumber) {
+        try {
+            return Enum.valueOf(type, text.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw malformed(lineNumber, "unknown " + type.getSimpleName() + " " + text);
+        }
+    }
+
+    private static Money parseMoney(String text, int lineNumber) {
+        try {
+            return Money.of(new BigDecimal(text));
+        } catch (IllegalArgumentException | ArithmeticException e) {
+            throw malformed(lineNumber, "invalid price " + text);
+        }
+    }
+
+    private static int parseInt(String text, int lineNumber) {
+        try {
+            return Integer.parseInt(text);
+        } catch (NumberFormatException e) {
+            throw malformed(lineNumber, "invalid number " + text);
+        }
+    }
+
+    private static String field(List<String> fields, int index, int lineNumber) {
+        if (fields.size() <= index || fields.get(index).isEmpty()) {
+            throw malformed(lineNumber, "missing field " + (index + 1));
+        }
+        return fields.get(index);
+    }
+
+    /**
+     * Разбивает строку CSV на поля (поддерживаются кавычки и "" внутри них)
+     */
+    private static List<String> split(String line, int lineNumber) {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString().trim());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        if (quoted) {
+            throw malformed(lineNumber, "unterminated quote");
+        }
+        fields.add(current.toString().trim());
+        return fields;
+    }
+
+    private static IllegalArgumentException malformed(int lineNumber, String reason) {
+        return new IllegalArgumentException(String.format("Malformed menu line %d: %s", lineNumber, reason));
+    }
+
+    @FunctionalInterface
+    private interface LineHandler {
+        void handle(ParsedItem item, int lineNumber);
+    }
+
+    /**
+     * Разобранная строка файла. Объект меню (и топпинги в реестрах)
+     * создается только при необходимости добавить или заменить позицию.
+     */
+    private static final class ParsedItem {
+        final String id;
+        final MenuCategory category;
+        final String name;
+        final Money price;
+        final boolean available;
+        int amount; // объем напитка или вес десерта
+        PizzaSize size;
+        DoughType dough;
+        final List<String> toppingNames = new ArrayList<>();
+        final List<Money> toppingPrices = new ArrayList<>();
+
+        ParsedItem(String id, MenuCategory category, String name, Money price, boolean available) {
+            this.id = id;
+            this.category = category;
+            this.name = name;
+            this.price = price;
+            this.available = available;
+        }
+
+        MenuItem create() {
+            MenuItem item;
+            if (category == MenuCategory.PIZZA) {
+                Pizza pizza = new Pizza(id, name, size, dough, price);
+                for (int i = 0; i < toppingNames.size(); i++) {
+                    pizza.addTopping(new Topping(toppingNames.get(i), toppingPrices.get(i)));
+                }
+                item = pizza;
+            } else if (category == MenuCategory.DRINK) {
+                item = new Drink(id, name, amount, price);
+            } else {
+                item = new Dessert(id, name, amount, price);
+            }
+            item.setAvailable(available);
+            return item;
+        }
+
+        /**
+         * Совпадает ли позиция во всем, кроме цены и доступности
+         * (сравнение без создания топпингов)
+         */
+        boolean sameDefinition(MenuItem existing) {
+            if (existing.getCategory() != category || !existing.getName().equals(name)) {
+                return false;
+            }
+            if (existing instanceof Pizza) {
+                Pizza pizza = (Pizza) existing;
+                return pizza.getSize() == size && pizza.getDoughType() == dough && sameToppings(pizza.getToppings());
+            }
+            if (existing instanceof Drink) {
+                return ((Drink) existing).getVolumeMl() == amount;
+            }
+            if (existing instanceof Dessert) {
+                return ((Dessert) existing).getWeightGrams() == amount;
+            }
+            return false;
+        }
+
+        private boolean sameToppings(List<Topping> toppings) {
+            if (toppings.size() != toppingNames.size()) {
+                return false;
+            }
+            for (int i = 0; i < toppings.size(); i++) {
+                Topping topping = toppings.get(i);
+                if (!topping.getIngredient().getName().equalsIgnoreCase(toppingNames.get(i))
+                    || !topping.getBasePrice().equals(toppingPrices.get(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Результат загрузки: ID добавленных, удаленных, переоцененных и измененных позиций
+     */
+    public static final class ReloadResult {
+        private final Set<String> seenIds = new HashSet<>();
+        private final List<String> added = new ArrayList<>();
+        private final List<String> removed = new ArrayList<>();
+        private final List<String> repriced = new ArrayList<>();
+        private final List<String> updated = new ArrayList<>();
+        private long version;
+
+        private ReloadResult(long version) {
+            this.version = version;
+        }
+
+        /**
+         * Версия меню после загрузки (не меняется, если разницы нет)
+         */
+        public long getVersion() {
+            return version;
+        }
+
+        public List<String> getAdded() {
+            return List.copyOf(added);
+        }
+
+        public List<String> getRemoved() {
+            return List.copyOf(removed);
+        }
+
+        public List<String> getRepriced() {
+            return List.copyOf(repriced);
+        }
+
+        public List<String> getUpdated() {
+            return List.copyOf(updated);
+        }
+
+        public boolean hasChanges() {
+            return !added.isEmpty() || !removed.isEmpty() || !repriced.isEmpty() || !updated.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("ReloadResult{version=%d, added=%d, removed=%d, repriced=%d, updated=%d}",
+                version, added.size(), removed.size(), repriced.size(), updated.size());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.common.MenuCategory;
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.menu.MenuItem;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Неизменяемая версия меню.
+ * Цены и доступность зафиксированы в момент публикации, поэтому
+ * расчет заказа по снимку не меняется, даже если менеджер параллельно
+ * публикует новую версию меню.
+ *
+ * Содержит индексы каталога: по ID, по категории, доступные позиции
+ * и префиксное дерево названий.
+ */
+public class MenuSnapshot {
+    private final long version;
+    private final List<MenuItem> all;
+    private final Map<String, MenuItem> byId;
+    private final Map<String, Money> prices;
+    private final Set<String> availableIds;
+    private final Map<MenuCategory, List<MenuItem>> byCategory;
+    private final List<MenuItem> available;
+    private final Map<MenuCategory, List<MenuItem>> availableByCategory;
+    private final NameTrie names;
+
+    private MenuSnapshot(long version, List<MenuItem> all, Map<String, MenuItem> byId,
+                         Map<String, Money> prices, Set<String> availableIds,
+                         Map<MenuCategory, List<MenuItem>> byCategory, List<MenuItem> available,
+                         Map<MenuCategory, List<MenuItem>> availableByCategory, NameTrie names) {
+        this.version = version;
+        this.all = all;
+        this.byId = byId;
+        this.prices = prices;
+        this.availableIds = availableIds;
+        this.byCategory = byCategory;
+        this.available = available;
+        this.availableByCategory = availableByCategory;
+        this.names = names;
+    }
+
+    /**
+     * Собирает снимок по текущему состоянию позиций меню
+     */
+    static MenuSnapshot build(long version, Collection<MenuItem> items) {
+        Map<String, MenuItem> byId = new HashMap<>();
+        Map<String, Money> prices = new HashMap<>();
+        Set<String> availableIds = new HashSet<>();
+        Map<MenuCategory, List<MenuItem>> byCategory = new EnumMap<>(MenuCategory.class);
+        Map<MenuCategory, List<MenuItem>> availableByCategory = new EnumMap<>(MenuCategory.class);
+        List<MenuItem> available = new ArrayList<>();
+        NameTrie names = new NameTrie();
+
+        for (MenuItem item : items) {
+            byId.put(item.getId(), item);
+            prices.put(item.getId(), item.getPrice());
+            byCategory.computeIfAbsent(item.getCategory(), c -> new ArrayList<>()).add(item);
+            if (item.isAvailable()) {
+                availableIds.add(item.getId());
+                available.add(item);
+                availableByCategory.computeIfAbsent(item.getCategory(), c -> new ArrayList<>()).add(item);
+            }
+            names.add(item);
+        }
+
+        byCategory.replaceAll((category, list) -> List.copyOf(list));
+        availableByCategory.replaceAll((category, list) -> List.copyOf(list));
+        return new MenuSnapshot(version, List.copyOf(items), byId, prices, availableIds,
+            byCategory, List.copyOf(available), availableByCategory, names);
+    }
+
+    /**
+     * Номер версии меню (растет с каждой публикацией)
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean contains(String itemId) {
+        return itemId != null && byId.containsKey(itemId);
+    }
+
+    public Optional<MenuItem> findById(String itemId) {
+        if (itemId == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(byId.get(itemId));
+    }
+
+    /**
+     * Цена позиции в этой версии меню
+     */
+    public Money priceOf(String itemId) {
+        Money price = itemId != null ? prices.get(itemId) : null;
+        if (price == null) {
+            throw new IllegalArgumentException("Menu item not found: " + itemId);
+        }
+        return price;
+    }
+
+    /**
+     * Доступность позиции в этой версии меню
+     */
+    public boolean isAvailable(String itemId) {
+        return itemId != null && availableIds.contains(itemId);
+    }
+
+    public List<MenuItem> findByCategory(MenuCategory category) {
+        List<MenuItem> result = byCategory.get(category);
+        return result != null ? result : List.of();
+    }
+
+    public List<MenuItem> getAvailableItems() {
+        return available;
+    }
+
+    public List<MenuItem> getAvailableItems(MenuCategory category) {
+        List<MenuItem> result = availableByCategory.get(category);
+        return result != null ? result : List.of();
+    }
+
+    public List<MenuItem> searchByName(String prefix, int limit) {
+        return names.search(prefix, limit);
+    }
+
+    public List<MenuItem> getAllItems() {
+        return all;
+    }
+
+    public int size() {
+        return all.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("MenuSnapshot{version=%d, items=%d, available=%d}",
+            version, all.size(), available.size());
+    }
+}
@@ -0,0 +1,87 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.menu.MenuItem;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Префиксное дерево для регистронезависимого поиска позиций меню по названию.
+ * Индексируется начало каждого слова названия, поэтому "chee" находит и "Cheesecake",
+ * и "Four Cheese". Поиск не просматривает все позиции: спуск по префиксу
+ * и обход только подходящего поддерева.
+ *
+ * После построения не изменяется и может читаться из любых потоков.
+ */
+class NameTrie {
+    private final Node root = new Node();
+
+    /**
+     * Добавляет позицию меню в дерево (только на этапе построения)
+     */
+    void add(MenuItem item) {
+        String name = normalize(item.getName());
+        for (int i = 0; i < name.length(); i++) {
+            if (i == 0 || (Character.isWhitespace(name.charAt(i - 1)) && !Character.isWhitespace(name.charAt(i)))) {
+                insert(name, i, item);
+            }
+        }
+    }
+
+    /**
+     * Находит позиции, у которых название или одно из слов начинается с префикса
+     */
+    List<MenuItem> search(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.children.get(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        Set<MenuItem> result = new LinkedHashSet<>();
+        collect(node, result, limit);
+        return new ArrayList<>(result);
+    }
+
+    private void insert(String name, int start, MenuItem item) {
+        Node node = root;
+        for (int i = start; i < name.length(); i++) {
+            node = node.children.computeIfAbsent(name.charAt(i), c -> new Node());
+        }
+        node.items.add(item);
+    }
+
+    private static void collect(Node node, Set<MenuItem> result, int limit) {
+        for (MenuItem item : node.items) {
+            if (result.size() >= limit) {
+                return;
+            }
+            result.add(item);
+        }
+        for (Node child : node.children.values()) {
+            if (result.size() >= limit) {
+                return;
+            }
+            collect(child, result, limit);
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static final class Node {
+        // TreeMap - результаты поиска упорядочены по алфавиту
+        final TreeMap<Character, Node> children = new TreeMap<>();
+        final List<MenuItem> items = new ArrayList<>(1);
+    }
+}
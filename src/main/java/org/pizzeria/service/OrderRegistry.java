@@ -0,0 +1,319 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.common.OrderStatus;
+import org.pizzeria.domain.menu.MenuItem;
+import org.pizzeria.domain.menu.Pizza;
+import org.pizzeria.domain.menu.Topping;
+import org.pizzeria.domain.order.Order;
+import org.pizzeria.domain.order.OrderItem;
+import org.pizzeria.domain.order.OrderLineListener;
+import org.pizzeria.domain.order.OrderStatusListener;
+import org.pizzeria.domain.user.Customer;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Реестр заказов с индексами.
+ * Основной индекс - по ID, вторичные - по клиенту и по статусу.
+ * Поиск и проверка наличия заказа выполняются за O(1).
+ *
+ * Реестр подписывается на изменения статуса каждого заказа, поэтому индекс
+ * по статусу остается верным при любом переходе, в том числе выполненном
+ * напрямую через Order.transitionTo.
+ *
+ * Вторичные индексы упорядочены по номеру регистрации: выборки возвращают
+ * заказы в порядке их добавления. Потокобезопасен.
+ *
+ * Для заказов-черновиков ведутся обратные индексы позиция меню -> заказы
+ * и ингредиент -> ID пицц в этих заказах. Они обновляются по событиям
+ * добавления и удаления строк и при выходе заказа из статуса DRAFT, поэтому
+ * распространение цен обходит только затронутые заказы.
+ */
+public class OrderRegistry implements OrderStatusListener, OrderLineListener {
+    private final Map<String, Entry> byId;
+    private final ConcurrentNavigableMap<Long, Order> all;
+    private final Map<Customer, ConcurrentNavigableMap<Long, Order>> byCustomer;
+    private final Map<OrderStatus, ConcurrentNavigableMap<Long, Order>> byStatus;
+    private final AtomicLong sequence;
+    // Только заказы, которые еще можно изменять (DRAFT)
+    private final Map<String, DraftItem> draftsByItem;
+    private final Map<Integer, Set<String>> draftPizzasByIngredient;
+
+    public OrderRegistry() {
+        this.byId = new ConcurrentHashMap<>();
+        this.all = new ConcurrentSkipListMap<>();
+        this.byCustomer = new ConcurrentHashMap<>();
+        this.byStatus = new EnumMap<>(OrderStatus.class);
+        this.sequence = new AtomicLong();
+        this.draftsByItem = new ConcurrentHashMap<>();
+        this.draftPizzasByIngredient = new ConcurrentHashMap<>();
+        for (OrderStatus status : OrderStatus.values()) {
+            byStatus.put(status, new ConcurrentSkipListMap<>());
+        }
+    }
+
+    /**
+     * Регистрирует заказ во всех индексах
+     */
+    public void add(Order order) {
+        if (order == null) {
+            throw new IllegalArgumentException("Order cannot be null");
+        }
+        Entry entry = new Entry(order, sequence.incrementAndGet());
+        if (byId.putIfAbsent(order.getId(), entry) != null) {
+            throw new IllegalArgumentException("Order already registered: " + order.getId());
+        }
+        all.put(entry.sequence, order);
+        byCustomer.computeIfAbsent(order.getCustomer(), customer -> new ConcurrentSkipListMap<>())
+            .put(entry.sequence, order);
+        // Сначала подписка, затем индексация: переход между ними тоже будет учтен
+        order.addStatusListener(this);
+        order.addLineListener(this);
+        reindexStatus(order);
+        synchronized (order) {
+            if (order.getStatus().isEditable()) {
+                for (OrderItem item : order.getItems()) {
+                    indexLine(order, item.getMenuItem());
+                }
+            }
+        }
+    }
+
+    /**
+     * Удаляет заказ из всех индексов
+     */
+    public boolean remove(Order order) {
+        Entry entry = order != null ? byId.get(order.getId()) : null;
+        if (entry == null || entry.order != order || !byId.remove(order.getId(), entry)) {
+            return false;
+        }
+        order.removeStatusListener(this);
+        order.removeLineListener(this);
+        unindexLines(order);
+        all.remove(entry.sequence);
+        byCustomer.computeIfPresent(order.getCustomer(), (customer, customerOrders) -> {
+            customerOrders.remove(entry.sequence);
+            return customerOrders.isEmpty() ? null : customerOrders;
+        });
+        synchronized (entry) {
+            if (entry.indexedStatus != null) {
+                byStatus.get(entry.indexedStatus).remove(entry.sequence);
+            }
+            entry.removed = true;
+        }
+        return true;
+    }
+
+    /**
+     * Проверяет, зарегистрирован ли именно этот экземпляр заказа
+     */
+    public boolean contains(Order order) {
+        Entry entry = order != null ? byId.get(order.getId()) : null;
+        return entry != null && entry.order == order;
+    }
+
+    @Override
+    public void statusChanged(Order order, OrderStatus previous) {
+        reindexStatus(order);
+        if (previous.isEditable() && !order.getStatus().isEditable()) {
+            unindexLines(order);
+        }
+    }
+
+    @Override
+    public void lineAdded(Order order, MenuItem item) {
+        if (contains(order) && order.getStatus().isEditable()) {
+            indexLine(order, item);
+        }
+    }
+
+    @Override
+    public void lineRemoved(Order order, MenuItem item) {
+        unindexLine(order, item);
+    }
+
+    /**
+     * Заказы-черновики с пиццами, в которые входит хотя бы один из ингредиентов
+     *
+     * @return заказ -> ID затронутых позиций заказа
+     */
+    public Map<Order, Set<String>> findDraftLinesByIngredients(BitSet ingredientOrdinals) {
+        Map<Order, Set<String>> result = new LinkedHashMap<>();
+        for (int i = ingredientOrdinals.nextSetBit(0); i >= 0; i = ingredientOrdinals.nextSetBit(i + 1)) {
+            Set<String> pizzaIds = draftPizzasByIngredient.get(i);
+            if (pizzaIds == null) {
+                continue;
+            }
+            for (String pizzaId : pizzaIds) {
+                DraftItem draftItem = draftsByItem.get(pizzaId);
+                if (draftItem == null) {
+                    continue;
+                }
+                for (Order order : draftItem.orders) {
+                    result.computeIfAbsent(order, o -> new LinkedHashSet<>()).add(pizzaId);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Число разных позиций меню в заказах-черновиках
+     */
+    public int getDraftItemCount() {
+        return draftsByItem.size();
+    }
+
+    /**
+     * Переносит заказ в индекс его текущего статуса.
+     * Вызывается автоматически после каждого перехода; повторный вызов безопасен.
+     */
+    public void reindexStatus(Order order) {
+        Entry entry = byId.get(order.getId());
+        if (entry == null || entry.order != order) {
+            return;
+        }
+        synchronized (entry) {
+            // Статус читается под блокировкой записи, поэтому последний
+            // из конкурирующих вызовов всегда видит итоговый статус
+            OrderStatus current = order.getStatus();
+            if (entry.removed || entry.indexedStatus == current) {
+                return;
+            }
+            byStatus.get(current).put(entry.sequence, order);
+            if (entry.indexedStatus != null) {
+                byStatus.get(entry.indexedStatus).remove(entry.sequence);
+            }
+            entry.indexedStatus = current;
+        }
+    }
+
+    public Optional<Order> findById(String orderId) {
+        if (orderId == null) {
+            return Optional.empty();
+        }
+        Entry entry = byId.get(orderId);
+        return Optional.ofNullable(entry != null ? entry.order : null);
+    }
+
+    public List<Order> findByCustomer(Customer customer) {
+        Map<Long, Order> customerOrders = customer != null ? byCustomer.get(customer) : null;
+        if (customerOrders == null) {
+            return Collections.emptyList();
+        }
+        return List.copyOf(customerOrders.values());
+    }
+
+    public List<Order> findByStatus(OrderStatus status) {
+        if (status == null) {
+            return Collections.emptyList();
+        }
+        return List.copyOf(byStatus.get(status).values());
+    }
+
+    /**
+     * Число заказов в статусе (обход индекса, O(k))
+     */
+    public int countByStatus(OrderStatus status) {
+        if (status == null) {
+            return 0;
+        }
+        return byStatus.get(status).size();
+    }
+
+    public List<Order> getAll() {
+        return new ArrayList<>(all.values());
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    private void indexLine(Order order, MenuItem item) {
+        draftsByItem.compute(item.getId(), (id, draftItem) -> {
+            if (draftItem == null) {
+                draftItem = new DraftItem(ingredientsOf(item));
+                for (int ingredient : draftItem.ingredients) {
+                    draftPizzasByIngredient.computeIfAbsent(ingredient, k -> ConcurrentHashMap.newKeySet()).add(id);
+                }
+            }
+            draftItem.orders.add(order);
+            return draftItem;
+        });
+    }
+
+    private void unindexLine(Order order, MenuItem item) {
+        draftsByItem.computeIfPresent(item.getId(), (id, draftItem) -> {
+            draftItem.orders.remove(order);
+            if (!draftItem.orders.isEmpty()) {
+                return draftItem;
+            }
+            for (int ingredient : draftItem.ingredients) {
+                draftPizzasByIngredient.computeIfPresent(ingredient, (k, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+            return null;
+        });
+    }
+
+    private static int[] ingredientsOf(MenuItem item) {
+        if (!(item instanceof Pizza)) {
+            return new int[0];
+        }
+        BitSet ingredients = new BitSet();
+        for (Topping topping : ((Pizza) item).getToppings()) {
+            ingredients.set(topping.getIngredient().getOrdinal());
+        }
+        return ingredients.stream().toArray();
+    }
+
+    private void unindexLines(Order order) {
+        synchronized (order) {
+            for (OrderItem item : order.getItems()) {
+                unindexLine(order, item.getMenuItem());
+            }
+        }
+    }
+
+    /**
+     * Заказ, его номер регистрации и статус, под которым он лежит в индексе
+     */
+    private static final class Entry {
+        final Order order;
+        final long sequence;
+        OrderStatus indexedStatus; // под блокировкой entry
+        boolean removed;
+
+        Entry(Order order, long sequence) {
+            this.order = order;
+            this.sequence = sequence;
+        }
+    }
+
+    /**
+     * Заказы-черновики с позицией и ингредиенты, под которыми позиция проиндексирована
+     */
+    private static final class DraftItem {
+        final int[] ingredients;
+        final Set<Order> orders = ConcurrentHashMap.newKeySet();
+
+        DraftItem(int[] ingredients) {
+            this.ingredients = ingredients;
+        }
+    }
+}
@@ -3,32 +3,116 @@ package org.pizzeria.service;
 import org.pizzeria.domain.common.OrderStatus;
 import org.pizzeria.domain.menu.MenuItem;
 import org.pizzeria.domain.order.Order;
+import org.pizzeria.domain.order.OrderItem;
 import org.pizzeria.domain.user.Customer;
+import org.pizzeria.exception.OrderModificationException;
+import org.pizzeria.exception.OutOfStockException;
 import org.pizzeria.observer.OrderNotifier;
 import org.pizzeria.strategy.DiscountStrategy;
 import org.pizzeria.validator.OrderValidator;
 
-import java.util.ArrayList;
+import java.lang.ref.WeakReference;
+import java.time.Duration;
+import java.util.BitSet;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Сервис для управления заказами.
  * Координирует создание, обновление и обработку заказов.
+ *
+ * Потокобезопасен: операции над одним заказом сериализуются через
+ * полосатые (striped) блокировки, операции над разными заказами идут параллельно.
+ * Уведомления о смене статуса отправляются под блокировкой заказа, поэтому
+ * наблюдатели получают переходы одного заказа в том порядке, в котором
+ * они применялись; синхронным наблюдателям не стоит выполнять долгую работу.
+ *
+ * Если задан InventoryReservationService, при переходе заказа к оплате или
+ * подтверждению под него резервируются ингредиенты; отмена возвращает их
+ * на склад, выполнение заказа подтверждает расход. Резервы заказов, не
+ * оплаченных в срок, снимаются периодической задачей:
+ * - на планировщике вызывающего кода, если он передан в конструктор; потоками
+ *   планировщика управляет вызывающий код, close() только отменяет задачу;
+ * - иначе на собственном daemon-потоке сервиса. close() останавливает поток;
+ *   если сервис не закрыт и стал недостижим, поток завершается сам
+ *   при следующем запуске задачи после сборки мусора.
  */
-public class OrderService {
-    private final List<Order> orders;
+public class OrderService implements AutoCloseable {
+    private static final Duration MAX_EXPIRY_INTERVAL = Duration.ofMinutes(1);
+
+    private final OrderRegistry orders;
     private final OrderNotifier notifier;
+    private final MenuCatalog catalog; // может быть null - тогда цены берутся из позиций меню
+    private final InventoryReservationService reservations; // может быть null - склад не резервируется
+    private final Lock[] stripes;
+    private final ScheduledExecutorService expiryScheduler; // null, если склад не резервируется
+    private final boolean ownsExpiryScheduler;
+    private final ScheduledFuture<?> expiryTask;
 
-    public OrderService(OrderNotifier notifier) {
-        this.orders = new ArrayList<>();
+    /**
+     * Создает сервис. Если задан сервис резервирования, снятие просроченных
+     * резервов планируется на scheduler.
+     *
+     * @param scheduler планировщик вызывающего кода; null - сервис запускает собственный поток
+     */
+    public OrderService(OrderNotifier notifier, MenuCatalog catalog, InventoryReservationService reservations,
+                        ScheduledExecutorService scheduler) {
+        this.orders = new OrderRegistry();
+        this.stripes = createStripes(Runtime.getRuntime().availableProcessors() * 4);
         this.notifier = notifier != null ? notifier : new OrderNotifier();
+        this.catalog = catalog;
+        this.reservations = reservations;
+        if (reservations == null) {
+            this.expiryScheduler = null;
+            this.ownsExpiryScheduler = false;
+            this.expiryTask = null;
+        } else {
+            this.ownsExpiryScheduler = scheduler == null;
+            this.expiryScheduler = scheduler != null ? scheduler : newExpiryScheduler();
+            this.expiryTask = scheduleReservationExpiry(this, expiryScheduler, ownsExpiryScheduler,
+                reservations.getPaymentTimeout());
+        }
+    }
+
+    /**
+     * Создает сервис. Если задан сервис резервирования, просроченные резервы
+     * снимает собственный daemon-поток сервиса до вызова close().
+     */
+    public OrderService(OrderNotifier notifier, MenuCatalog catalog, InventoryReservationService reservations) {
+        this(notifier, catalog, reservations, null);
+    }
+
+    public OrderService(OrderNotifier notifier, MenuCatalog catalog) {
+        this(notifier, catalog, null);
+    }
+
+    public OrderService(OrderNotifier notifier) {
+        this(notifier, null);
     }
 
     public OrderService() {
         this(new OrderNotifier());
     }
 
+    private static Lock[] createStripes(int minCount) {
+        int count = Integer.highestOneBit(Math.max(minCount, 16) - 1) << 1;
+        Lock[] locks = new Lock[count];
+        for (int i = 0; i < count; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
     /**
      * Создает новый заказ
      */
@@ -45,14 +129,66 @@ public class OrderService {
     }
 
     /**
-     * Добавляет позицию в заказ
+     * Добавляет позицию в заказ.
+     * Если задан каталог, цена берется из текущей версии меню,
+     * и позиция запоминает номер этой версии.
      */
     public void addItemToOrder(Order order, MenuItem menuItem, int quantity) {
         if (!orders.contains(order)) {
             throw new IllegalArgumentException("Order not found");
         }
+        if (menuItem == null) {
+            throw new IllegalArgumentException("Menu item cannot be null");
+        }
+
+        Lock lock = lockFor(order);
+        lock.lock();
+        try {
+            MenuSnapshot menu = catalog != null ? catalog.current() : null;
+            if (menu != null && menu.contains(menuItem.getId())) {
+                order.addItem(menuItem, quantity, menu.priceOf(menuItem.getId()), menu.getVersion());
+            } else {
+                order.addItem(menuItem, quantity);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Переоценивает указанные позиции заказа-черновика по текущим ценам
+     * (из текущей версии меню, если позиция в нем есть)
+     *
+     * @return true, если подытог заказа изменился
+     */
+    public boolean repriceItems(Order order, Collection<String> menuItemIds) {
+        if (!orders.contains(order)) {
+            throw new IllegalArgumentException("Order not found");
+        }
 
-        order.addItem(menuItem, quantity);
+        Lock lock = lockFor(order);
+        lock.lock();
+        try {
+            if (order.getStatus() != OrderStatus.DRAFT) {
+                return false;
+            }
+            MenuSnapshot menu = catalog != null ? catalog.current() : null;
+            boolean changed = false;
+            for (OrderItem item : order.getItems()) {
+                String id = item.getMenuItem().getId();
+                if (!menuItemIds.contains(id)) {
+                    continue;
+                }
+                if (menu != null && menu.contains(id)) {
+                    changed |= order.repriceItem(id, menu.priceOf(id), menu.getVersion());
+                } else {
+                    changed |= order.repriceItem(id, item.getMenuItem().getPrice(), OrderItem.UNVERSIONED);
+                }
+            }
+            return changed;
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
@@ -63,98 +199,294 @@ public class OrderService {
             throw new IllegalArgumentException("Order not found");
         }
 
-        if (discountStrategy.isApplicable(order)) {
-            order.setDiscount(discountStrategy.calculateDiscount(order));
+        Lock lock = lockFor(order);
+        lock.lock();
+        try {
+            if (discountStrategy.isApplicable(order)) {
+                order.setDiscount(discountStrategy.calculateDiscount(order));
+            }
+        } finally {
+            lock.unlock();
         }
     }
 
     /**
      * Подтверждает заказ
+     *
+     * @throws OutOfStockException если не удалось зарезервировать ингредиенты
      */
-    public void confirmOrder(Order order) {
+    public void confirmOrder(Order order) throws OrderModificationException, OutOfStockException {
         if (!orders.contains(order)) {
             throw new IllegalArgumentException("Order not found");
         }
 
-        // Валидируем заказ
-        OrderValidator.validateAndThrow(order);
+        Lock lock = lockFor(order);
+        lock.lock();
+        try {
+            // Валидируем заказ
+            OrderValidator.validateAndThrow(order, catalog != null ? catalog.getAvailability() : null);
 
-        order.setStatus(OrderStatus.CONFIRMED);
-        notifier.notifyOrderStatusChanged(order);
+            transition(order, OrderStatus.CONFIRMED);
+            notifier.notifyOrderStatusChanged(order);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * Отменяет заказ
      */
-    public void cancelOrder(Order order) {
+    public void cancelOrder(Order order) throws OrderModificationException {
         if (!orders.contains(order)) {
             throw new IllegalArgumentException("Order not found");
         }
 
-        if (!order.isCancellable()) {
-            throw new IllegalStateException("Order cannot be cancelled");
-        }
+        Lock lock = lockFor(order);
+        lock.lock();
+        try {
+            if (!order.isCancellable()) {
+                throw new IllegalStateException("Order cannot be cancelled");
+            }
 
-        order.setStatus(OrderStatus.CANCELLED);
-        notifier.notifyOrderCancelled(order);
+            order.transitionTo(OrderStatus.CANCELLED);
+            if (reservations != null) {
+                reservations.release(order);
+            }
+            notifier.notifyOrderCancelled(order);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * Завершает заказ
      */
-    public void completeOrder(Order order) {
+    public void completeOrder(Order order) throws OrderModificationException {
         if (!orders.contains(order)) {
             throw new IllegalArgumentException("Order not found");
         }
 
-        order.setStatus(OrderStatus.COMPLETED);
-        notifier.notifyOrderCompleted(order);
+        Lock lock = lockFor(order);
+        lock.lock();
+        try {
+            order.transitionTo(OrderStatus.COMPLETED);
+            if (reservations != null) {
+                reservations.commit(order);
+            }
+            notifier.notifyOrderCompleted(order);
+        } finally {
+            lock.unlock();
+        }
     }
 
     /**
      * Обновляет статус заказа
+     *
+     * @throws OutOfStockException если при переходе к оплате или подтверждению
+     *                             не удалось зарезервировать ингредиенты
      */
-    public void updateOrderStatus(Order order, OrderStatus newStatus) {
+    public void updateOrderStatus(Order order, OrderStatus newStatus)
+            throws OrderModificationException, OutOfStockException {
         if (!orders.contains(order)) {
             throw new IllegalArgumentException("Order not found");
         }
 
-        order.setStatus(newStatus);
-        notifier.notifyOrderStatusChanged(order);
+        Lock lock = lockFor(order);
+        lock.lock();
+        try {
+            transition(order, newStatus);
+            notifier.notifyOrderStatusChanged(order);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Снимает резервы заказов, которые ждут оплаты дольше срока резервирования.
+     * Если такой заказ все же будет оплачен, ингредиенты резервируются заново.
+     *
+     * @return число снятых резервов
+     */
+    public int expireReservations() {
+        if (reservations == null) {
+            return 0;
+        }
+        int released = 0;
+        for (Order order : orders.findByStatus(OrderStatus.PENDING_PAYMENT)) {
+            if (!reservations.isExpired(order)) {
+                continue;
+            }
+            Lock lock = lockFor(order);
+            lock.lock();
+            try {
+                // Статус мог измениться, пока заказ не был заблокирован
+                if (order.getStatus() == OrderStatus.PENDING_PAYMENT && reservations.isExpired(order)) {
+                    reservations.release(order);
+                    released++;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        return released;
+    }
+
+    /**
+     * Останавливает снятие просроченных резервов: отменяет задачу, а собственный
+     * поток сервиса завершает. Заказы и резервы остаются как есть.
+     */
+    @Override
+    public void close() {
+        if (expiryTask != null) {
+            expiryTask.cancel(false);
+        }
+        if (ownsExpiryScheduler) {
+            expiryScheduler.shutdownNow();
+        }
+    }
+
+    private static ScheduledExecutorService newExpiryScheduler() {
+        return Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "reservation-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Проверяет просроченные резервы четыре раза за срок оплаты, но не реже раза в минуту.
+     * Задача держит сервис через слабую ссылку, чтобы не продлевать ему жизнь.
+     */
+    private static ScheduledFuture<?> scheduleReservationExpiry(OrderService service,
+                                                                 ScheduledExecutorService scheduler,
+                                                                 boolean ownsScheduler,
+                                                                 Duration paymentTimeout) {
+        Duration interval = paymentTimeout.dividedBy(4);
+        if (interval.compareTo(MAX_EXPIRY_INTERVAL) > 0) {
+            interval = MAX_EXPIRY_INTERVAL;
+        }
+        long millis = Math.max(1, interval.toMillis());
+        WeakReference<OrderService> reference = new WeakReference<>(service);
+        AtomicReference<ScheduledFuture<?>> self = new AtomicReference<>();
+        ScheduledFuture<?> task = scheduler.scheduleWithFixedDelay(() -> {
+            OrderService current = reference.get();
+            if (current == null) {
+                // Сервис не закрыли, но он уже недостижим
+                ScheduledFuture<?> future = self.get();
+                if (future != null) {
+                    future.cancel(false);
+                }
+                if (ownsScheduler) {
+                    scheduler.shutdown();
+                }
+                return;
+            }
+            try {
+                current.expireReservations();
+            } catch (RuntimeException e) {
+                System.err.println("Error expiring reservations: " + e.getMessage());
+            }
+        }, millis, millis, TimeUnit.MILLISECONDS);
+        self.set(task);
+        return task;
+    }
+
+    /**
+     * Переводит заказ в новый статус и ведет резерв ингредиентов
+     * (вызывается под блокировкой заказа)
+     */
+    private void transition(Order order, OrderStatus next) throws OrderModificationException, OutOfStockException {
+        boolean reserved = false;
+        if (reservations != null && holdsStock(next) && !reservations.hasReservation(order)) {
+            reservations.reserve(order);
+            reserved = true;
+        }
+        try {
+            order.transitionTo(next);
+        } catch (OrderModificationException | RuntimeException e) {
+            if (reserved) {
+                reservations.release(order);
+            }
+            throw e;
+        }
+        if (reservations != null) {
+            if (next == OrderStatus.CANCELLED) {
+                reservations.release(order);
+            } else if (next == OrderStatus.DELIVERED || next == OrderStatus.COMPLETED) {
+                reservations.commit(order);
+            }
+        }
+    }
+
+    /**
+     * Статусы, в которых под заказ должны быть зарезервированы ингредиенты
+     */
+    private static boolean holdsStock(OrderStatus status) {
+        return status == OrderStatus.PENDING_PAYMENT || status == OrderStatus.PAID
+            || status == OrderStatus.CONFIRMED;
+    }
+
+    /**
+     * Возвращает блокировку полосы, к которой относится заказ.
+     * Операции над разными заказами почти всегда попадают в разные полосы
+     * и выполняются параллельно.
+     */
+    private Lock lockFor(Order order) {
+        int h = order.getId().hashCode();
+        h ^= (h >>> 16);
+        return stripes[h & (stripes.length - 1)];
     }
 
     /**
      * Находит заказ по ID
      */
     public Optional<Order> findOrderById(String orderId) {
-        return orders.stream()
-            .filter(o -> o.getId().equals(orderId))
-            .findFirst();
+        return orders.findById(orderId);
     }
 
     /**
      * Находит все заказы клиента
      */
     public List<Order> findOrdersByCustomer(Customer customer) {
-        return orders.stream()
-            .filter(o -> o.getCustomer().equals(customer))
-            .toList();
+        return orders.findByCustomer(customer);
     }
 
     /**
      * Находит заказы по статусу
      */
     public List<Order> findOrdersByStatus(OrderStatus status) {
-        return orders.stream()
-            .filter(o -> o.getStatus() == status)
-            .toList();
+        return orders.findByStatus(status);
+    }
+
+    /**
+     * Заказы-черновики с пиццами, в которые входит хотя бы один из ингредиентов
+     * (по обратному индексу, без обхода всех заказов)
+     *
+     * @return заказ -> ID затронутых позиций
+     */
+    public Map<Order, Set<String>> findDraftLinesByIngredients(BitSet ingredientOrdinals) {
+        return orders.findDraftLinesByIngredients(ingredientOrdinals);
     }
 
     /**
      * Возвращает все заказы
      */
     public List<Order> getAllOrders() {
-        return new ArrayList<>(orders);
+        return orders.getAll();
+    }
+
+    /**
+     * Возвращает каталог меню (или null, если сервис работает без каталога)
+     */
+    public MenuCatalog getCatalog() {
+        return catalog;
+    }
+
+    /**
+     * Возвращает сервис резервирования (или null, если склад не резервируется)
+     */
+    public InventoryReservationService getReservations() {
+        return reservations;
     }
 
     /**
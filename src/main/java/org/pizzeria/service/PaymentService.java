@@ -1,5 +1,7 @@
 package org.pizzeria.service;
 
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.common.MoneyAccumulator;
 import org.pizzeria.domain.order.Order;
 import org.pizzeria.domain.payment.Payment;
 import org.pizzeria.domain.payment.PaymentMethod;
@@ -134,6 +136,23 @@ public class PaymentService {
             .toList();
     }
 
+    /**
+     * Сводка по успешным платежам: выручка, количество, мин/макс чек
+     */
+    public MoneyAccumulator summarizeSuccessfulPayments() {
+        return payments.stream()
+            .filter(Payment::isSuccessful)
+            .map(Payment::getAmount)
+            .collect(MoneyAccumulator.collector());
+    }
+
+    /**
+     * Считает общую выручку по успешным платежам
+     */
+    public Money calculateTotalRevenue() {
+        return summarizeSuccessfulPayments().getSum();
+    }
+
     /**
      * Возвращает все платежи
      */
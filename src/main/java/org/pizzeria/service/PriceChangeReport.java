@@ -0,0 +1,104 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.common.Money;
+
+import java.util.List;
+
+/**
+ * Отчет о распространении изменения цен ингредиентов:
+ * сколько топпингов подорожало или подешевело, какие позиции меню
+ * и какие заказы-черновики были переоценены.
+ */
+public class PriceChangeReport {
+    private final int ingredientCount;
+    private final int toppingCount;
+    private final List<String> menuItemIds;
+    private final long menuVersion;
+    private final List<OrderChange> orders;
+
+    PriceChangeReport(int ingredientCount, int toppingCount, List<String> menuItemIds,
+                      long menuVersion, List<OrderChange> orders) {
+        this.ingredientCount = ingredientCount;
+        this.toppingCount = toppingCount;
+        this.menuItemIds = List.copyOf(menuItemIds);
+        this.menuVersion = menuVersion;
+        this.orders = List.copyOf(orders);
+    }
+
+    /**
+     * Количество ингредиентов в пакете изменений
+     */
+    public int getIngredientCount() {
+        return ingredientCount;
+    }
+
+    /**
+     * Количество топпингов, цена которых изменилась
+     */
+    public int getToppingCount() {
+        return toppingCount;
+    }
+
+    /**
+     * ID переоцененных позиций меню
+     */
+    public List<String> getMenuItemIds() {
+        return menuItemIds;
+    }
+
+    /**
+     * Версия меню после переоценки (-1, если каталог не менялся)
+     */
+    public long getMenuVersion() {
+        return menuVersion;
+    }
+
+    /**
+     * Переоцененные заказы-черновики
+     */
+    public List<OrderChange> getRepricedOrders() {
+        return orders;
+    }
+
+    public boolean hasChanges() {
+        return toppingCount > 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("PriceChangeReport{ingredients=%d, toppings=%d, menuItems=%d, orders=%d}",
+            ingredientCount, toppingCount, menuItemIds.size(), orders.size());
+    }
+
+    /**
+     * Изменение подытога одного заказа
+     */
+    public static final class OrderChange {
+        private final String orderId;
+        private final Money previousSubtotal;
+        private final Money newSubtotal;
+
+        OrderChange(String orderId, Money previousSubtotal, Money newSubtotal) {
+            this.orderId = orderId;
+            this.previousSubtotal = previousSubtotal;
+            this.newSubtotal = newSubtotal;
+        }
+
+        public String getOrderId() {
+            return orderId;
+        }
+
+        public Money getPreviousSubtotal() {
+            return previousSubtotal;
+        }
+
+        public Money getNewSubtotal() {
+            return newSubtotal;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %s -> %s", orderId, previousSubtotal, newSubtotal);
+        }
+    }
+}
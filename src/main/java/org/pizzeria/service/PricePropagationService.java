@@ -0,0 +1,118 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.menu.Ingredient;
+import org.pizzeria.domain.menu.IngredientRegistry;
+import org.pizzeria.domain.menu.MenuItem;
+import org.pizzeria.domain.menu.Pizza;
+import org.pizzeria.domain.menu.ToppingRegistry;
+import org.pizzeria.domain.order.Order;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Распространение изменения цен по графу зависимостей
+ * Ingredient -> Topping -> Pizza -> открытые заказы (DRAFT).
+ *
+ * Изменения обрабатываются пакетом: ингредиенты дедуплицируются в битовое
+ * множество, таблица цен топпингов публикуется один раз. Затронутые пиццы меню
+ * находятся по обратному индексу ингредиент -> позиции (MenuAvailability),
+ * затронутые заказы - по индексам реестра заказов ингредиент -> пиццы в черновиках
+ * и пицца -> черновики. Обходятся только затронутые записи, а не все меню и заказы.
+ */
+public class PricePropagationService {
+    private final OrderService orderService;
+    private final MenuCatalog catalog; // может быть null
+
+    public PricePropagationService(OrderService orderService, MenuCatalog catalog) {
+        if (orderService == null) {
+            throw new IllegalArgumentException("Order service cannot be null");
+        }
+        this.orderService = orderService;
+        this.catalog = catalog;
+    }
+
+    public PricePropagationService(OrderService orderService) {
+        this(orderService, orderService != null ? orderService.getCatalog() : null);
+    }
+
+    /**
+     * Применяет прайс поставщика (новые цены за единицу) и переоценивает
+     * все зависящие от них позиции меню и заказы-черновики
+     */
+    public PriceChangeReport updateIngredientPrices(Map<Ingredient, Double> pricesPerUnit) {
+        for (Map.Entry<Ingredient, Double> entry : pricesPerUnit.entrySet()) {
+            if (entry.getValue() == null) {
+                throw new IllegalArgumentException("Price cannot be null: " + entry.getKey());
+            }
+        }
+        for (Map.Entry<Ingredient, Double> entry : pricesPerUnit.entrySet()) {
+            IngredientRegistry.intern(entry.getKey()).setPricePerUnit(entry.getValue());
+        }
+        return propagate(pricesPerUnit.keySet());
+    }
+
+    /**
+     * Переоценивает все, что зависит от ингредиентов, цены которых уже изменены
+     */
+    public synchronized PriceChangeReport propagate(Collection<Ingredient> changed) {
+        BitSet ingredients = new BitSet();
+        for (Ingredient ingredient : changed) {
+            Ingredient canonical = IngredientRegistry.intern(ingredient);
+            ingredients.set(canonical.getOrdinal());
+        }
+
+        // Ingredient -> Topping: только топпинги, цена которых действительно изменилась
+        BitSet toppings = ToppingRegistry.refreshPrices(ingredients);
+        if (toppings.isEmpty()) {
+            return new PriceChangeReport(ingredients.cardinality(), 0, List.of(), -1, List.of());
+        }
+
+        // Topping -> Ingredient: только ингредиенты, у которых цена топпинга действительно сдвинулась
+        BitSet affectedIngredients = new BitSet();
+        for (int t = toppings.nextSetBit(0); t >= 0; t = toppings.nextSetBit(t + 1)) {
+            affectedIngredients.set(ToppingRegistry.byOrdinal(t).getIngredient().getOrdinal());
+        }
+
+        // Ingredient -> Pizza в меню по обратному индексу MenuAvailability
+        List<String> menuItemIds = new ArrayList<>();
+        long menuVersion = -1;
+        if (catalog != null) {
+            MenuSnapshot menu = catalog.current();
+            Set<String> candidates = new LinkedHashSet<>();
+            for (int i = affectedIngredients.nextSetBit(0); i >= 0; i = affectedIngredients.nextSetBit(i + 1)) {
+                candidates.addAll(catalog.getAvailability().findDependentItems(IngredientRegistry.byOrdinal(i)));
+            }
+            for (String id : candidates) {
+                Optional<MenuItem> item = menu.findById(id);
+                if (item.isPresent() && item.get() instanceof Pizza && ((Pizza) item.get()).usesAnyTopping(toppings)) {
+                    menuItemIds.add(id);
+                }
+            }
+            if (!menuItemIds.isEmpty()) {
+                menuVersion = catalog.republish().getVersion();
+            }
+        }
+
+        // Ingredient -> Pizza -> Order по обратным индексам заказов-черновиков
+        List<PriceChangeReport.OrderChange> orders = new ArrayList<>();
+        Map<Order, Set<String>> lines = orderService.findDraftLinesByIngredients(affectedIngredients);
+        for (Map.Entry<Order, Set<String>> entry : lines.entrySet()) {
+            Order order = entry.getKey();
+            Money before = order.getSubtotal();
+            if (orderService.repriceItems(order, entry.getValue())) {
+                orders.add(new PriceChangeReport.OrderChange(order.getId(), before, order.getSubtotal()));
+            }
+        }
+
+        return new PriceChangeReport(ingredients.cardinality(), toppings.cardinality(),
+            menuItemIds, menuVersion, orders);
+    }
+}
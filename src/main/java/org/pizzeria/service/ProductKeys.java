@@ -0,0 +1,23 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.menu.MenuItem;
+import org.pizzeria.domain.menu.Pizza;
+
+import java.util.Locale;
+
+/**
+ * Ключ "товара" для статистики продаж.
+ * Пиццы учитываются по названию (все размеры и копии "Pepperoni" - один товар),
+ * остальные позиции - по ID.
+ */
+final class ProductKeys {
+    private ProductKeys() {
+    }
+
+    static String of(MenuItem item) {
+        if (item instanceof Pizza) {
+            return "pizza:" + item.getName().toLowerCase(Locale.ROOT);
+        }
+        return item.getId();
+    }
+}
@@ -0,0 +1,327 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.menu.MenuItem;
+import org.pizzeria.domain.order.Order;
+import org.pizzeria.domain.order.OrderItem;
+import org.pizzeria.observer.OrderObserver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Рекомендации "часто покупают вместе" по истории завершенных заказов.
+ * Подписывается на OrderNotifier и обновляет матрицу совместных покупок
+ * при каждом завершении заказа.
+ *
+ * Матрица разреженная: строка для каждой позиции - IntDoubleMap по
+ * внутренним номерам позиций. Позиции сопоставляются по ProductKeys.
+ *
+ * Старые данные затухают экспоненциально с периодом полураспада в заказах:
+ * вместо уменьшения всех весов растет вес новых заказов, а при большом
+ * множителе матрица один раз нормируется и из нее удаляются незначимые пары.
+ * Позиции, статистика которых затухла, при нормировке удаляются целиком
+ * (строка, столбец и номер), а номера оставшихся уплотняются. Позиции,
+ * убранные из меню, удаляются так же через removeItem или retainItems.
+ */
+public class RecommendationService implements OrderObserver {
+    private static final int DEFAULT_HALF_LIFE_ORDERS = 5000;
+    private static final double RENORMALIZE_AT = 1e9;
+    // Пары с весом меньше этого (в долях свежего заказа) удаляются при нормировке
+    private static final double PRUNE_BELOW = 1e-3;
+
+    private final double growthPerOrder;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Изменяется только под write lock
+    private final Map<String, Integer> indexByKey = new HashMap<>();
+    private final List<MenuItem> representatives = new ArrayList<>();
+    private IntDoubleMap[] rows = new IntDoubleMap[16];
+    private double[] counts = new double[16];
+    private double weight = 1.0;
+
+    /**
+     * @param halfLifeOrders через сколько завершенных заказов вес данных уменьшается вдвое
+     */
+    public RecommendationService(int halfLifeOrders) {
+        if (halfLifeOrders <= 0) {
+            throw new IllegalArgumentException("Half-life must be positive");
+        }
+        this.growthPerOrder = Math.pow(2.0, 1.0 / halfLifeOrders);
+    }
+
+    public RecommendationService() {
+        this(DEFAULT_HALF_LIFE_ORDERS);
+    }
+
+    /**
+     * Учитывает состав заказа в матрице совместных покупок
+     */
+    public void recordOrder(Order order) {
+        List<OrderItem> items = order.getItems();
+        if (items.isEmpty()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int[] indexes = new int[items.size()];
+            int distinct = 0;
+            for (OrderItem item : items) {
+                int index = indexOf(item.getMenuItem());
+                if (!contains(indexes, distinct, index)) {
+                    indexes[distinct++] = index;
+                }
+            }
+            for (int i = 0; i < distinct; i++) {
+                int a = indexes[i];
+                counts[a] += weight;
+                for (int j = 0; j < distinct; j++) {
+                    if (i != j) {
+                        rows[a].add(indexes[j], weight);
+                    }
+                }
+            }
+            weight *= growthPerOrder;
+            if (weight > RENORMALIZE_AT) {
+                renormalize();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Возвращает до limit позиций, которые чаще всего покупают вместе с item.
+     * Оценка - доля заказов с item, в которых была и эта позиция (с учетом затухания).
+     */
+    public List<Companion> getCompanions(MenuItem item, int limit) {
+        if (item == null || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Integer index = indexByKey.get(ProductKeys.of(item));
+            if (index == null || counts[index] <= 0) {
+                return List.of();
+            }
+            IntDoubleMap row = rows[index];
+            int n = Math.min(limit, row.size());
+            int[] top = new int[n];
+            double[] topValues = new double[n];
+            int filled = 0;
+            // Вставка в отсортированный по убыванию массив из n элементов
+            for (int slot = 0; slot < row.capacity(); slot++) {
+                int companion = row.keyAt(slot);
+                if (companion < 0) {
+                    continue;
+                }
+                double value = row.valueAt(slot);
+                if (filled == n && value <= topValues[n - 1]) {
+                    continue;
+                }
+                int position = filled < n ? filled++ : n - 1;
+                while (position > 0 && topValues[position - 1] < value) {
+                    top[position] = top[position - 1];
+                    topValues[position] = topValues[position - 1];
+                    position--;
+                }
+                top[position] = companion;
+                topValues[position] = value;
+            }
+            List<Companion> result = new ArrayList<>(filled);
+            for (int i = 0; i < filled; i++) {
+                result.add(new Companion(representatives.get(top[i]), Math.min(1.0, topValues[i] / counts[index])));
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Удаляет статистику позиции (например, убранной из меню)
+     *
+     * @return false, если по позиции нет статистики
+     */
+    public boolean removeItem(MenuItem item) {
+        if (item == null) {
+            return false;
+        }
+        lock.writeLock().lock();
+        try {
+            Integer index = indexByKey.get(ProductKeys.of(item));
+            if (index == null) {
+                return false;
+            }
+            boolean[] dead = new boolean[representatives.size()];
+            dead[index] = true;
+            compact(dead, 1.0, 0.0);
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Оставляет статистику только по указанным позициям (например, текущему меню)
+     *
+     * @return количество удаленных позиций
+     */
+    public int retainItems(Collection<? extends MenuItem> items) {
+        Set<String> keys = new HashSet<>();
+        for (MenuItem item : items) {
+            keys.add(ProductKeys.of(item));
+        }
+        lock.writeLock().lock();
+        try {
+            boolean[] dead = new boolean[representatives.size()];
+            int removed = 0;
+            for (int i = 0; i < dead.length; i++) {
+                dead[i] = !keys.contains(ProductKeys.of(representatives.get(i)));
+                if (dead[i]) {
+                    removed++;
+                }
+            }
+            if (removed > 0) {
+                compact(dead, 1.0, 0.0);
+            }
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Количество позиций, по которым накоплена статистика
+     */
+    public int getTrackedItemCount() {
+        lock.readLock().lock();
+        try {
+            return representatives.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onOrderCompleted(Order order) {
+        recordOrder(order);
+    }
+
+    @Override
+    public void onOrderStatusChanged(Order order) {
+    }
+
+    @Override
+    public void onOrderCreated(Order order) {
+    }
+
+    @Override
+    public void onOrderCancelled(Order order) {
+    }
+
+    private int indexOf(MenuItem item) {
+        String key = ProductKeys.of(item);
+        Integer index = indexByKey.get(key);
+        if (index != null) {
+            representatives.set(index, item); // запоминаем актуальный экземпляр
+            return index;
+        }
+        int created = representatives.size();
+        if (created == rows.length) {
+            rows = Arrays.copyOf(rows, created * 2);
+            counts = Arrays.copyOf(counts, created * 2);
+        }
+        rows[created] = new IntDoubleMap();
+        representatives.add(item);
+        indexByKey.put(key, created);
+        return created;
+    }
+
+    /**
+     * Переводит веса к масштабу свежего заказа = 1 и удаляет затухшие пары и позиции
+     */
+    private void renormalize() {
+        double factor = 1.0 / weight;
+        boolean[] dead = new boolean[representatives.size()];
+        for (int i = 0; i < dead.length; i++) {
+            dead[i] = counts[i] * factor < PRUNE_BELOW;
+        }
+        compact(dead, factor, PRUNE_BELOW);
+        weight = 1.0;
+    }
+
+    /**
+     * Удаляет строки и столбцы помеченных позиций, сдвигает номера остальных
+     * и масштабирует веса
+     */
+    private void compact(boolean[] dead, double factor, double threshold) {
+        int[] mapping = new int[dead.length];
+        int alive = 0;
+        for (int i = 0; i < dead.length; i++) {
+            mapping[i] = dead[i] ? -1 : alive++;
+        }
+        List<MenuItem> survivors = new ArrayList<>(alive);
+        indexByKey.clear();
+        // Новый номер не больше старого, поэтому перенос на месте безопасен
+        for (int i = 0; i < dead.length; i++) {
+            int target = mapping[i];
+            if (target < 0) {
+                continue;
+            }
+            IntDoubleMap row = rows[i];
+            row.remap(mapping, factor, threshold);
+            rows[target] = row;
+            counts[target] = counts[i] * factor;
+            MenuItem item = representatives.get(i);
+            survivors.add(item);
+            indexByKey.put(ProductKeys.of(item), target);
+        }
+        Arrays.fill(rows, alive, dead.length, null);
+        Arrays.fill(counts, alive, dead.length, 0.0);
+        representatives.clear();
+        representatives.addAll(survivors);
+    }
+
+    private static boolean contains(int[] values, int length, int value) {
+        for (int i = 0; i < length; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Рекомендуемая позиция и ее оценка (0..1)
+     */
+    public static final class Companion {
+        private final MenuItem item;
+        private final double score;
+
+        Companion(MenuItem item, double score) {
+            this.item = item;
+            this.score = score;
+        }
+
+        public MenuItem getItem() {
+            return item;
+        }
+
+        public double getScore() {
+            return score;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s (%.2f)", item.getName(), score);
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.menu.Ingredient;
+import org.pizzeria.domain.menu.IngredientRegistry;
+import org.pizzeria.domain.menu.LowStockListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Оповещения о необходимости пополнить склад.
+ * Получает от InventoryLedger пересечения порогов низкого запаса и копит их
+ * до конца окна; затем в фоновом потоке рассылает один RestockEvent,
+ * в котором каждый ингредиент встречается не более одного раза.
+ *
+ * Поток, списавший запас, только кладет заявку в карту, поэтому пачка
+ * заказов, прошедших через порог, дает одно оповещение, а не сотни.
+ */
+public class RestockAlertService implements LowStockListener, AutoCloseable {
+    private static final Duration DEFAULT_WINDOW = Duration.ofMinutes(1);
+
+    /**
+     * Получатель пакетов заявок на пополнение
+     */
+    @FunctionalInterface
+    public interface Listener {
+        void restockNeeded(RestockEvent event);
+    }
+
+    private final Duration window;
+    private final Clock clock;
+    private final Map<Ingredient, RestockEvent.Request> pending = new ConcurrentHashMap<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService scheduler;
+
+    public RestockAlertService(Duration window, Clock clock) {
+        if (window == null || window.isNegative() || window.isZero()) {
+            throw new IllegalArgumentException("Window must be positive");
+        }
+        if (clock == null) {
+            throw new IllegalArgumentException("Clock cannot be null");
+        }
+        this.window = window;
+        this.clock = clock;
+    }
+
+    public RestockAlertService() {
+        this(DEFAULT_WINDOW, Clock.systemUTC());
+    }
+
+    public void addListener(Listener listener) {
+        if (listener == null) {
+            throw new IllegalArgumentException("Listener cannot be null");
+        }
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Подписывается на пороги склада и запускает рассылку раз в окно
+     */
+    public synchronized void start() {
+        if (scheduler != null) {
+            throw new IllegalStateException("Restock alert service is already started");
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "restock-alerts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        IngredientRegistry.addLowStockListener(this);
+        long millis = window.toMillis();
+        scheduler.scheduleAtFixedRate(this::flushQuietly, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void lowStock(Ingredient ingredient, int remaining, int threshold) {
+        RestockEvent.Request request = new RestockEvent.Request(ingredient, remaining, threshold);
+        pending.merge(ingredient, request, (old, fresh) -> fresh.getRemaining() < old.getRemaining() ? fresh : old);
+    }
+
+    /**
+     * Ингредиенты, ожидающие рассылки в текущем окне
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Рассылает накопленные заявки сразу, не дожидаясь конца окна
+     *
+     * @return число ингредиентов в разосланном пакете
+     */
+    public int flush() {
+        List<RestockEvent.Request> requests = new ArrayList<>(pending.size());
+        for (Ingredient ingredient : pending.keySet()) {
+            RestockEvent.Request request = pending.remove(ingredient);
+            if (request != null) {
+                requests.add(request);
+            }
+        }
+        if (requests.isEmpty()) {
+            return 0;
+        }
+        RestockEvent event = new RestockEvent(clock.instant(), requests);
+        for (Listener listener : listeners) {
+            try {
+                listener.restockNeeded(event);
+            } catch (Exception e) {
+                System.err.println("Error notifying restock listener: " + e.getMessage());
+            }
+        }
+        return requests.size();
+    }
+
+    /**
+     * Отписывается от склада и рассылает оставшиеся заявки
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler == null) {
+            return;
+        }
+        IngredientRegistry.removeLowStockListener(this);
+        scheduler.shutdownNow();
+        scheduler = null;
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            System.err.println("Error sending restock alerts: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.menu.Ingredient;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Пакет заявок на пополнение склада за одно окно RestockAlertService:
+ * не более одной заявки на ингредиент.
+ */
+public class RestockEvent {
+    private final Instant createdAt;
+    private final List<Request> requests;
+
+    RestockEvent(Instant createdAt, List<Request> requests) {
+        this.createdAt = createdAt;
+        this.requests = List.copyOf(requests);
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public List<Request> getRequests() {
+        return requests;
+    }
+
+    public int size() {
+        return requests.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RestockEvent[%s, %d ingredients]", createdAt, requests.size());
+    }
+
+    /**
+     * Заявка на пополнение одного ингредиента
+     */
+    public static final class Request {
+        private final Ingredient ingredient;
+        private final int remaining;
+        private final int threshold;
+
+        Request(Ingredient ingredient, int remaining, int threshold) {
+            this.ingredient = ingredient;
+            this.remaining = remaining;
+            this.threshold = threshold;
+        }
+
+        public Ingredient getIngredient() {
+            return ingredient;
+        }
+
+        /**
+         * Запас в момент пересечения порога (при нескольких пересечениях за окно - наименьший)
+         */
+        public int getRemaining() {
+            return remaining;
+        }
+
+        public int getThreshold() {
+            return threshold;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s: %d (threshold %d)", ingredient.getName(), remaining, threshold);
+        }
+    }
+}
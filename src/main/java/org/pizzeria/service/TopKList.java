@@ -0,0 +1,93 @@
+package org.pizzeria.service;
+
+import org.pizzeria.domain.menu.MenuItem;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Ограниченный список K самых частых ключей, упорядоченный по убыванию оценки.
+ * Порядок поддерживается при каждом обновлении: ключ с выросшей оценкой
+ * сдвигается к началу вставкой, новый ключ вытесняет последний, только если
+ * его оценка больше. Поэтому выборка лидеров - копирование первых записей, O(K),
+ * а обновление - O(K) в худшем случае (обычно ключ сдвигается на несколько позиций).
+ * Память не зависит от числа разных ключей.
+ *
+ * Методы синхронизированы; список маленький, поэтому блокировка короткая.
+ */
+final class TopKList {
+    private final String[] keys;
+    private final long[] counts;
+    private final MenuItem[] items;
+    private final Map<String, Integer> positions;
+    private int size;
+
+    TopKList(int capacity) {
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+        this.items = new MenuItem[capacity];
+        this.positions = new HashMap<>(capacity * 2);
+    }
+
+    /**
+     * Обновляет оценку ключа (оценки только растут)
+     */
+    synchronized void offer(String key, MenuItem item, long estimate) {
+        Integer position = positions.get(key);
+        if (position != null) {
+            counts[position] = Math.max(counts[position], estimate);
+            items[position] = item;
+            moveUp(position);
+            return;
+        }
+        if (size < keys.length) {
+            set(size, key, item, estimate);
+            moveUp(size++);
+            return;
+        }
+        int last = size - 1;
+        if (estimate > counts[last]) {
+            positions.remove(keys[last]);
+            set(last, key, item, estimate);
+            moveUp(last);
+        }
+    }
+
+    /**
+     * Возвращает до limit записей по убыванию оценки
+     */
+    synchronized List<BestSellerService.BestSeller> top(int limit) {
+        int n = Math.min(limit, size);
+        List<BestSellerService.BestSeller> result = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            result.add(new BestSellerService.BestSeller(items[i], counts[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Сдвигает запись к началу, пока предыдущая оценка меньше
+     */
+    private void moveUp(int position) {
+        String key = keys[position];
+        MenuItem item = items[position];
+        long count = counts[position];
+        int target = position;
+        while (target > 0 && counts[target - 1] < count) {
+            set(target, keys[target - 1], items[target - 1], counts[target - 1]);
+            target--;
+        }
+        if (target != position) {
+            set(target, key, item, count);
+        }
+    }
+
+    private void set(int position, String key, MenuItem item, long count) {
+        keys[position] = key;
+        items[position] = item;
+        counts[position] = count;
+        positions.put(key, position);
+    }
+}
@@ -1,5 +1,6 @@
 package org.pizzeria.validator;
 
+import org.pizzeria.domain.menu.MenuAvailability;
 import org.pizzeria.domain.order.Order;
 import org.pizzeria.domain.order.OrderItem;
 
@@ -17,6 +18,15 @@ public class OrderValidator {
      * @return список ошибок (пустой, если заказ валиден)
      */
     public static List<String> validate(Order order) {
+        return validate(order, null);
+    }
+
+    /**
+     * Валидирует заказ, проверяя доступность позиций по битовой карте меню
+     * @param availability битовая карта (null - проверяется флаг самой позиции)
+     * @return список ошибок (пустой, если заказ валиден)
+     */
+    public static List<String> validate(Order order, MenuAvailability availability) {
         List<String> errors = new ArrayList<>();
 
         if (order == null) {
@@ -36,7 +46,10 @@ public class OrderValidator {
 
         // Проверяем, что все позиции доступны
         for (OrderItem item : order.getItems()) {
-            if (!item.getMenuItem().isAvailable()) {
+            boolean available = availability != null
+                ? availability.isAvailable(item.getMenuItem())
+                : item.getMenuItem().isAvailable();
+            if (!available) {
                 errors.add(String.format("Item '%s' is not available",
                     item.getMenuItem().getName()));
             }
@@ -70,7 +83,11 @@ public class OrderValidator {
      * Валидирует заказ и выбрасывает исключение при ошибках
      */
     public static void validateAndThrow(Order order) {
-        List<String> errors = validate(order);
+        validateAndThrow(order, null);
+    }
+
+    public static void validateAndThrow(Order order, MenuAvailability availability) {
+        List<String> errors = validate(order, availability);
         if (!errors.isEmpty()) {
             throw new IllegalStateException("Order validation failed: " +
                 String.join(", ", errors));
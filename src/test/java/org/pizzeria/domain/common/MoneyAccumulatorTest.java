@@ -0,0 +1,103 @@
+package org.pizzeria.domain.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Свертка сумм через MoneyAccumulator: последовательный и параллельный
+ * коллекторы дают одинаковый результат, валюта проверяется и сбрасывается.
+ */
+class MoneyAccumulatorTest {
+
+    @Test
+    void parallelCollectorMatchesSequentialFold() {
+        Random random = new Random(3);
+        List<Money> amounts = new ArrayList<>();
+        long expectedSum = 0;
+        long expectedMin = Long.MAX_VALUE;
+        long expectedMax = Long.MIN_VALUE;
+        for (int i = 0; i < 50_000; i++) {
+            long cents = random.nextInt(1_000_000);
+            amounts.add(Money.ofMinorUnits(cents));
+            expectedSum += cents;
+            expectedMin = Math.min(expectedMin, cents);
+            expectedMax = Math.max(expectedMax, cents);
+        }
+
+        MoneyAccumulator sequential = amounts.stream().collect(MoneyAccumulator.collector());
+        MoneyAccumulator parallel = amounts.parallelStream().collect(MoneyAccumulator.collector());
+
+        for (MoneyAccumulator accumulator : List.of(sequential, parallel)) {
+            assertEquals(Money.ofMinorUnits(expectedSum), accumulator.getSum());
+            assertEquals(amounts.size(), accumulator.getCount());
+            assertEquals(Money.ofMinorUnits(expectedMin), accumulator.getMin());
+            assertEquals(Money.ofMinorUnits(expectedMax), accumulator.getMax());
+        }
+        assertEquals(Money.ofMinorUnits(expectedSum), amounts.parallelStream().collect(MoneyAccumulator.summing()));
+    }
+
+    @Test
+    void emptyAccumulatorReportsZeros() {
+        MoneyAccumulator empty = Stream.<Money>empty().collect(MoneyAccumulator.collector());
+
+        assertTrue(empty.isEmpty());
+        assertEquals(Money.zero(), empty.getSum());
+        assertEquals(Money.zero(), empty.getMin());
+        assertEquals(Money.zero(), empty.getMax());
+        assertEquals(Money.zero(), empty.getAverage());
+        assertEquals(Money.zero(Currency.EUR), new MoneyAccumulator(Currency.EUR).getSum());
+    }
+
+    @Test
+    void averageRoundsHalfUp() {
+        MoneyAccumulator accumulator = new MoneyAccumulator()
+            .add(Money.ofMinorUnits(1))
+            .add(Money.ofMinorUnits(2));
+
+        assertEquals(Money.ofMinorUnits(2), accumulator.getAverage());
+    }
+
+    @Test
+    void mixedCurrenciesAreRejected() {
+        Money euros = Money.of(BigDecimal.ONE, Currency.EUR);
+        MoneyAccumulator dollars = new MoneyAccumulator().add(Money.of(1.00));
+
+        assertThrows(IllegalArgumentException.class, () -> dollars.add(euros));
+        assertThrows(IllegalArgumentException.class,
+            () -> dollars.merge(new MoneyAccumulator().add(euros)));
+        assertThrows(IllegalArgumentException.class,
+            () -> Stream.of(Money.of(1.00), euros).collect(MoneyAccumulator.summing()));
+    }
+
+    @Test
+    void resetForgetsInferredCurrency() {
+        MoneyAccumulator accumulator = new MoneyAccumulator().add(Money.of(BigDecimal.TEN, Currency.EUR));
+
+        accumulator.reset();
+        accumulator.add(Money.of(2.50));
+
+        assertEquals(Money.of(2.50), accumulator.getSum());
+        assertEquals(1, accumulator.getCount());
+    }
+
+    @Test
+    void resetKeepsCurrencyFixedAtConstruction() {
+        MoneyAccumulator accumulator = new MoneyAccumulator(Currency.EUR)
+            .add(Money.of(BigDecimal.TEN, Currency.EUR));
+
+        accumulator.reset();
+
+        assertTrue(accumulator.isEmpty());
+        assertEquals(Money.zero(Currency.EUR), accumulator.getSum());
+        assertThrows(IllegalArgumentException.class, () -> accumulator.add(Money.of(2.50)));
+    }
+}
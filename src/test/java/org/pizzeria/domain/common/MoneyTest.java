@@ -0,0 +1,131 @@
+package org.pizzeria.domain.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Округление Money на центах совпадает с BigDecimal HALF_UP - прежней
+ * реализацией на BigDecimal - для процентов, умножения и деления,
+ * включая целые множители (быстрый путь) и отрицательные аргументы.
+ */
+class MoneyTest {
+    private static final int SAMPLES = 20_000;
+    private static final double[] FACTORS = {
+        0, 1, 2, 3, 7, 100, 1e6, 0.5, 0.15, 0.333, 1.005, 2.675, 0.125, 1.1, 99.99,
+        -1, -2, -0.5, -0.004, -1e6
+    };
+
+    @Test
+    void percentageMatchesBigDecimalHalfUp() {
+        Random random = new Random(42);
+        for (int i = 0; i < SAMPLES; i++) {
+            long cents = randomCents(random);
+            // Ниже и выше границы точного пути, включая отрицательные
+            int percent = random.nextInt(400_000) - 100_000;
+            BigDecimal expected = amount(cents).multiply(BigDecimal.valueOf(percent).movePointLeft(2));
+            assertSameOutcome(expected, () -> Money.ofMinorUnits(cents).percentage(percent),
+                cents + " cents * " + percent + "%");
+        }
+    }
+
+    @Test
+    void multiplyMatchesBigDecimalHalfUp() {
+        Random random = new Random(7);
+        for (int i = 0; i < SAMPLES; i++) {
+            long cents = randomCents(random);
+            double factor = i < FACTORS.length * 100 ? FACTORS[i % FACTORS.length] : randomFactor(random);
+            BigDecimal expected = amount(cents).multiply(BigDecimal.valueOf(factor));
+            assertSameOutcome(expected, () -> Money.ofMinorUnits(cents).multiply(factor),
+                cents + " cents * " + factor);
+        }
+    }
+
+    @Test
+    void divideMatchesBigDecimalHalfUp() {
+        Random random = new Random(11);
+        for (int i = 0; i < SAMPLES; i++) {
+            long cents = randomCents(random);
+            double divisor = i < FACTORS.length * 100 ? FACTORS[i % FACTORS.length] : randomFactor(random);
+            if (divisor == 0) {
+                assertThrows(IllegalArgumentException.class, () -> Money.ofMinorUnits(cents).divide(0));
+                continue;
+            }
+            BigDecimal expected = amount(cents).divide(BigDecimal.valueOf(divisor), 2, RoundingMode.HALF_UP);
+            assertSameOutcome(expected, () -> Money.ofMinorUnits(cents).divide(divisor),
+                cents + " cents / " + divisor);
+        }
+    }
+
+    @Test
+    void halfCentsRoundUp() {
+        assertEquals(Money.of(0.01), Money.ofMinorUnits(1).multiply(0.5));
+        assertEquals(Money.of(0.02), Money.ofMinorUnits(5).percentage(30));
+        assertEquals(Money.of(0.01), Money.ofMinorUnits(1).percentage(50));
+        assertEquals(Money.of(0.00), Money.ofMinorUnits(1).percentage(49));
+        assertEquals(Money.of(0.02), Money.ofMinorUnits(3).divide(2));
+        assertEquals(Money.of(0.01), Money.ofMinorUnits(3).divide(4));
+    }
+
+    @Test
+    void negativeResultsAreRejected() {
+        Money price = Money.of(10.00);
+
+        assertThrows(IllegalArgumentException.class, () -> price.multiply(-1));
+        assertThrows(IllegalArgumentException.class, () -> price.multiply(-0.5));
+        assertThrows(IllegalArgumentException.class, () -> price.percentage(-10));
+        assertThrows(IllegalArgumentException.class, () -> price.divide(-2));
+        assertThrows(IllegalArgumentException.class, () -> price.subtract(Money.of(10.01)));
+        assertEquals(Money.zero(), Money.zero().multiply(-3));
+    }
+
+    @Test
+    void currencyIsAvailableAsCodeAndAsUnit() {
+        Money euros = Money.of(new BigDecimal("12.34"), Currency.EUR);
+
+        assertEquals("EUR", euros.getCurrency());
+        assertSame(Currency.EUR, euros.getCurrencyUnit());
+        assertEquals(Currency.EUR, new Money(new BigDecimal("1"), "EUR").getCurrencyUnit());
+    }
+
+    // Ожидаемый результат по BigDecimal: округление HALF_UP, отрицательная сумма - ошибка
+    private static void assertSameOutcome(BigDecimal exact, Supplier<Money> actual, String message) {
+        if (exact.signum() < 0) {
+            assertThrows(IllegalArgumentException.class, actual::get, message);
+            return;
+        }
+        long expectedCents = exact.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+        assertEquals(expectedCents, actual.get().getMinorUnits(), message);
+    }
+
+    private static BigDecimal amount(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static long randomCents(Random random) {
+        switch (random.nextInt(3)) {
+            case 0:
+                return random.nextInt(100);
+            case 1:
+                return random.nextInt(100_000);
+            default:
+                return (long) (random.nextDouble() * 1e10);
+        }
+    }
+
+    // Целые (быстрый путь) и дробные множители обоих знаков
+    private static double randomFactor(Random random) {
+        double sign = random.nextInt(4) == 0 ? -1 : 1;
+        if (random.nextBoolean()) {
+            return sign * random.nextInt(1_000);
+        }
+        return sign * random.nextInt(100_000) / 1_000.0;
+    }
+}
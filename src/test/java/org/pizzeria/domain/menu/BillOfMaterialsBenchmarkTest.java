@@ -0,0 +1,106 @@
+package org.pizzeria.domain.menu;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.pizzeria.domain.common.DoughType;
+import org.pizzeria.domain.common.Email;
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.common.PhoneNumber;
+import org.pizzeria.domain.common.PizzaSize;
+import org.pizzeria.domain.order.Order;
+import org.pizzeria.domain.order.OrderItem;
+import org.pizzeria.domain.user.Customer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.IntSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Замер разворачивания заказа из 50 строк в потребность по ингредиентам:
+ * сложение векторов BillOfMaterials против обхода топпингов через Map.
+ * JMH в сборке нет, поэтому замер - тест с прогревом и лучшим из нескольких раундов.
+ */
+class BillOfMaterialsBenchmarkTest {
+    private static final int LINES = 50;
+    private static final int INGREDIENTS = 12;
+    private static final int WARMUP = 20_000;
+    private static final int ITERATIONS = 20_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void vectorExpansionOfFiftyLineOrderMatchesToppingWalkAndIsFaster(TestReporter reporter) {
+        Order order = fiftyLineOrder();
+        int[] expected = walkToppings(order);
+        assertArrayEquals(expected, order.getIngredientDemand());
+
+        long vectorNanos = bestNanosPerOp(() -> last(order.getIngredientDemand()));
+        long walkNanos = bestNanosPerOp(() -> last(walkToppings(order)));
+
+        reporter.publishEntry("bom.vector.nsPerOrder", Long.toString(vectorNanos));
+        reporter.publishEntry("bom.toppingWalk.nsPerOrder", Long.toString(walkNanos));
+        assertTrue(vectorNanos < walkNanos,
+            "Vector expansion " + vectorNanos + " ns should beat topping walk " + walkNanos + " ns");
+    }
+
+    private static Order fiftyLineOrder() {
+        List<Topping> toppings = new ArrayList<>();
+        for (int i = 0; i < INGREDIENTS; i++) {
+            Ingredient ingredient = IngredientRegistry.intern("Test " + UUID.randomUUID(), 1.0);
+            toppings.add(ToppingRegistry.intern(new Topping(ingredient, Money.of(1.00))));
+        }
+        Order order = new Order(new Customer("c1", "Ann",
+            new Email("ann@example.com"), new PhoneNumber("+375291234567"), "hash"));
+        for (int line = 0; line < LINES; line++) {
+            Pizza pizza = new Pizza("bom-" + line, "Pizza " + line, PizzaSize.MEDIUM,
+                DoughType.TRADITIONAL, Money.of(8.00));
+            // От 3 до 6 топпингов, иногда двойная порция
+            for (int t = 0; t < 3 + line % 4; t++) {
+                pizza.addTopping(toppings.get((line + t * 5) % INGREDIENTS));
+            }
+            order.addItem(pizza, 1 + line % 3);
+        }
+        return order;
+    }
+
+    // Наивный вариант: количество по ингредиенту собирается в HashMap
+    private static int[] walkToppings(Order order) {
+        Map<Ingredient, Integer> counts = new HashMap<>();
+        for (OrderItem item : order.getItems()) {
+            Pizza pizza = (Pizza) item.getMenuItem();
+            for (Topping topping : pizza.getToppings()) {
+                counts.merge(topping.getIngredient(), item.getQuantity(), Integer::sum);
+            }
+        }
+        int[] demand = BillOfMaterials.newDemandVector();
+        counts.forEach((ingredient, quantity) -> demand[ingredient.getOrdinal()] += quantity);
+        return demand;
+    }
+
+    private static int last(int[] demand) {
+        return demand[demand.length - 1];
+    }
+
+    private static long bestNanosPerOp(IntSupplier operation) {
+        long sink = 0;
+        for (int i = 0; i < WARMUP; i++) {
+            sink += operation.getAsInt();
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ITERATIONS; i++) {
+                sink += operation.getAsInt();
+            }
+            best = Math.min(best, (System.nanoTime() - start) / ITERATIONS);
+        }
+        // Результат используется, чтобы JIT не выбросил вычисления
+        assertTrue(sink >= 0);
+        return best;
+    }
+}
@@ -0,0 +1,100 @@
+package org.pizzeria.domain.menu;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Замер масштабирования InventoryLedger: потоки, работающие с разными
+ * ингредиентами, не теряют обновлений и не мешают друг другу.
+ * JMH в сборке нет, поэтому замер - тест с прогревом и лучшим из нескольких раундов.
+ */
+class InventoryLedgerBenchmarkTest {
+    private static final int CORES = Runtime.getRuntime().availableProcessors();
+    private static final int THREADS = Math.min(Math.max(2, CORES), 8);
+    private static final int OPERATIONS = 200_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    void threadsOnDifferentIngredientsLoseNoUpdates() throws Exception {
+        Ingredient[] ingredients = newIngredients(THREADS);
+
+        runOnOwnIngredients(ingredients, THREADS);
+
+        for (Ingredient ingredient : ingredients) {
+            // Каждая операция добавляет 2 и списывает 1
+            assertEquals(OPERATIONS, ingredient.getStockQuantity());
+        }
+    }
+
+    @Test
+    void throughputOnDifferentIngredientsScalesNearLinearly(TestReporter reporter) throws Exception {
+        assumeTrue(CORES > 1, "Scaling needs more than one core");
+        Ingredient[] ingredients = newIngredients(THREADS);
+
+        // Прогрев
+        runOnOwnIngredients(ingredients, 1);
+        runOnOwnIngredients(ingredients, THREADS);
+        long single = Long.MAX_VALUE;
+        long parallel = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            single = Math.min(single, runOnOwnIngredients(ingredients, 1));
+            parallel = Math.min(parallel, runOnOwnIngredients(ingredients, THREADS));
+        }
+
+        // Один поток делает OPERATIONS операций, THREADS потоков - в THREADS раз больше
+        double speedup = (double) single * THREADS / parallel;
+        reporter.publishEntry("ledger.threads", Integer.toString(THREADS));
+        reporter.publishEntry("ledger.speedup", String.format("%.2f", speedup));
+        assertTrue(speedup >= THREADS * 0.5,
+            "Speedup " + speedup + " on " + THREADS + " threads is far from linear");
+    }
+
+    private static Ingredient[] newIngredients(int count) {
+        Ingredient[] ingredients = new Ingredient[count];
+        for (int i = 0; i < count; i++) {
+            ingredients[i] = IngredientRegistry.intern("Test " + UUID.randomUUID(), 1.0);
+            ingredients[i].useStock(ingredients[i].getStockQuantity());
+        }
+        return ingredients;
+    }
+
+    // Каждый поток работает только со своим ингредиентом; возвращает время в наносекундах
+    private static long runOnOwnIngredients(Ingredient[] ingredients, int threads) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int ordinal = ingredients[t].getOrdinal();
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < OPERATIONS; i++) {
+                        InventoryLedger.add(ordinal, 2);
+                        InventoryLedger.tryConsume(ordinal, 1);
+                    }
+                    return null;
+                }));
+            }
+            long began = System.nanoTime();
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return System.nanoTime() - began;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
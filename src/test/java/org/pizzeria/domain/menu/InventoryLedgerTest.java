@@ -0,0 +1,202 @@
+package org.pizzeria.domain.menu;
+
+import org.junit.jupiter.api.Test;
+import org.pizzeria.exception.OutOfStockException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Параллельные списания из InventoryLedger: продается ровно доступный запас,
+ * а неудачное списание нескольких ингредиентов откатывается полностью.
+ */
+class InventoryLedgerTest {
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    @Test
+    void racingTryConsumeSellsExactlyAvailableStock() throws Exception {
+        Ingredient ingredient = newIngredient(10_000);
+        AtomicInteger sold = new AtomicInteger();
+
+        runConcurrently(() -> {
+            while (InventoryLedger.tryConsume(ingredient.getOrdinal(), 1)) {
+                sold.incrementAndGet();
+            }
+        });
+
+        assertEquals(10_000, sold.get());
+        assertEquals(0, ingredient.getStockQuantity());
+        assertFalse(ingredient.isInStock());
+    }
+
+    @Test
+    void concurrentAddAndConsumeLoseNoUpdates() throws Exception {
+        Ingredient ingredient = newIngredient(0);
+        int rounds = 20_000;
+        AtomicInteger consumed = new AtomicInteger();
+
+        runConcurrently(() -> {
+            for (int i = 0; i < rounds; i++) {
+                InventoryLedger.add(ingredient.getOrdinal(), 2);
+                if (InventoryLedger.tryConsume(ingredient.getOrdinal(), 1)) {
+                    consumed.incrementAndGet();
+                }
+            }
+        });
+
+        assertEquals(THREADS * rounds * 2 - consumed.get(), ingredient.getStockQuantity());
+    }
+
+    @Test
+    void racingConsumeAllSellsOnlyWholeSets() throws Exception {
+        Ingredient cheese = newIngredient(1_000);
+        Ingredient sauce = newIngredient(600);
+        int[] ordinals = {cheese.getOrdinal(), sauce.getOrdinal()};
+        int[] quantities = {2, 1};
+        AtomicInteger sets = new AtomicInteger();
+
+        runConcurrently(() -> {
+            while (true) {
+                try {
+                    InventoryLedger.consumeAll(ordinals, quantities);
+                    sets.incrementAndGet();
+                } catch (OutOfStockException e) {
+                    return;
+                }
+            }
+        });
+
+        // Сыра хватает на 500 наборов, соуса - на 600
+        assertEquals(500, sets.get());
+        assertEquals(0, cheese.getStockQuantity());
+        assertEquals(100, sauce.getStockQuantity());
+    }
+
+    @Test
+    void failedConsumeAllRollsBackEarlierIngredients() {
+        Ingredient plenty = newIngredient(50);
+        Ingredient scarce = newIngredient(1);
+
+        assertThrows(OutOfStockException.class, () -> InventoryLedger.consumeAll(
+            new int[]{plenty.getOrdinal(), scarce.getOrdinal()}, new int[]{10, 2}));
+
+        assertEquals(50, plenty.getStockQuantity());
+        assertEquals(1, scarce.getStockQuantity());
+    }
+
+    @Test
+    void consumeAllUnderContentionNeverGoesNegative() throws Exception {
+        Ingredient shared = newIngredient(1_000);
+        Ingredient scarce = newIngredient(THREADS / 2);
+        int[] ordinals = {shared.getOrdinal(), scarce.getOrdinal()};
+        AtomicInteger succeeded = new AtomicInteger();
+
+        runConcurrently(() -> {
+            try {
+                InventoryLedger.consumeAll(ordinals, new int[]{10, 1});
+                succeeded.incrementAndGet();
+            } catch (OutOfStockException e) {
+                // часть потоков должна получить отказ
+            }
+        });
+
+        assertEquals(THREADS / 2, succeeded.get());
+        assertEquals(1_000 - 10 * succeeded.get(), shared.getStockQuantity());
+        assertEquals(0, scarce.getStockQuantity());
+        assertTrue(shared.getStockQuantity() >= 0);
+    }
+
+    @Test
+    void failingConsumeAllNeverHidesStockFromOtherThreads() throws Exception {
+        Ingredient plenty = newIngredient(1);
+        Ingredient missing = newIngredient(0);
+        int[] ordinals = {plenty.getOrdinal(), missing.getOrdinal()};
+        int[] quantities = {1, 1};
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger spuriousFailures = new AtomicInteger();
+
+        Runnable failing = () -> {
+            while (!done.get()) {
+                assertThrows(OutOfStockException.class, () -> InventoryLedger.consumeAll(ordinals, quantities));
+            }
+        };
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            Thread thread = new Thread(failing);
+            threads.add(thread);
+            thread.start();
+        }
+        try {
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(300);
+            while (System.nanoTime() < deadline) {
+                if (!InventoryLedger.tryConsume(plenty.getOrdinal(), 1)) {
+                    spuriousFailures.incrementAndGet();
+                    continue;
+                }
+                InventoryLedger.add(plenty.getOrdinal(), 1);
+            }
+        } finally {
+            done.set(true);
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+
+        // Нехватка второго ингредиента обнаруживается до списания первого
+        assertEquals(0, spuriousFailures.get());
+        assertEquals(1, plenty.getStockQuantity());
+    }
+
+    @Test
+    void consumeAllSumsRepeatedIngredients() throws Exception {
+        Ingredient cheese = newIngredient(4);
+        int[] ordinals = {cheese.getOrdinal(), cheese.getOrdinal()};
+
+        assertThrows(OutOfStockException.class, () -> InventoryLedger.consumeAll(ordinals, new int[]{2, 3}));
+        assertEquals(4, cheese.getStockQuantity());
+
+        InventoryLedger.consumeAll(ordinals, new int[]{2, 2});
+        assertEquals(0, cheese.getStockQuantity());
+    }
+
+    private static Ingredient newIngredient(int stock) {
+        Ingredient ingredient = IngredientRegistry.intern("Test " + UUID.randomUUID(), 1.0);
+        ingredient.useStock(ingredient.getStockQuantity());
+        ingredient.addStock(stock);
+        return ingredient;
+    }
+
+    private static void runConcurrently(Runnable task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    task.run();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
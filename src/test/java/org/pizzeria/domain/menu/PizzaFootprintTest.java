@@ -0,0 +1,108 @@
+package org.pizzeria.domain.menu;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.pizzeria.domain.common.BakeLevel;
+import org.pizzeria.domain.common.DoughType;
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.common.PizzaSize;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Замер занимаемой памяти на одну пиццу: компактное представление
+ * (упакованные опции и массив номеров топпингов) против прежнего
+ * (три ссылки на enum и ArrayList объектов Topping).
+ * JOL в сборке нет, поэтому размер считается по приросту занятой кучи
+ * после сборки мусора на большом числе живых экземпляров.
+ */
+class PizzaFootprintTest {
+    private static final int INSTANCES = 50_000;
+    private static final int TOPPINGS = 5;
+    private static final int ROUNDS = 3;
+
+    @Test
+    void compactPizzaRetainsLessMemoryThanToppingList(TestReporter reporter) {
+        List<Topping> toppings = new ArrayList<>();
+        for (int i = 0; i < TOPPINGS; i++) {
+            Ingredient ingredient = IngredientRegistry.intern("Test " + UUID.randomUUID(), 1.0);
+            toppings.add(ToppingRegistry.intern(new Topping(ingredient, Money.of(1.00))));
+        }
+        Money basePrice = Money.of(9.00);
+
+        long compact = bytesPerInstance(i -> {
+            Pizza pizza = new Pizza("fp", "Footprint", PizzaSize.LARGE, DoughType.THIN, basePrice);
+            for (Topping topping : toppings) {
+                pizza.addTopping(topping);
+            }
+            return pizza;
+        });
+        long legacy = bytesPerInstance(i -> new LegacyPizza("fp", "Footprint", PizzaSize.LARGE,
+            DoughType.THIN, BakeLevel.NORMAL, toppings, basePrice));
+
+        reporter.publishEntry("pizza.compact.bytes", Long.toString(compact));
+        reporter.publishEntry("pizza.toppingList.bytes", Long.toString(legacy));
+        assertTrue(compact < legacy,
+            "Compact pizza " + compact + " bytes should be smaller than " + legacy + " bytes");
+    }
+
+    // Минимум по нескольким раундам, чтобы отсечь фоновые выделения
+    private static long bytesPerInstance(IntFunction<Object> factory) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            Object[] instances = new Object[INSTANCES];
+            long before = usedHeapAfterGc(memory);
+            for (int i = 0; i < INSTANCES; i++) {
+                instances[i] = factory.apply(i);
+            }
+            long after = usedHeapAfterGc(memory);
+            Reference.reachabilityFence(instances);
+            best = Math.min(best, (after - before) / INSTANCES);
+        }
+        return best;
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Прежняя раскладка полей пиццы, для сравнения
+     */
+    private static final class LegacyPizza {
+        private final String id;
+        private final String name;
+        private String description;
+        private PizzaSize size;
+        private DoughType doughType;
+        private BakeLevel bakeLevel;
+        private final List<Topping> toppings;
+        private Money basePrice;
+        private boolean available;
+
+        LegacyPizza(String id, String name, PizzaSize size, DoughType doughType,
+                    BakeLevel bakeLevel, List<Topping> toppings, Money basePrice) {
+            this.id = id;
+            this.name = name;
+            this.description = "";
+            this.size = size;
+            this.doughType = doughType;
+            this.bakeLevel = bakeLevel;
+            this.toppings = new ArrayList<>(toppings);
+            this.basePrice = basePrice;
+            this.available = true;
+        }
+    }
+}
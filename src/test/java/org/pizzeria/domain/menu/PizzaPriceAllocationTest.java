@@ -0,0 +1,87 @@
+package org.pizzeria.domain.menu;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.pizzeria.domain.common.DoughType;
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.common.PizzaSize;
+
+import java.lang.management.ManagementFactory;
+import java.util.BitSet;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Повторное чтение цены пиццы не выделяет память: цена берется из кеша,
+ * пока не изменились базовая цена, топпинги или цены топпингов.
+ * Выделения считаются через com.sun.management.ThreadMXBean текущего потока.
+ */
+class PizzaPriceAllocationTest {
+    private static final int READS = 1_000_000;
+    // Запас на служебные выделения самого замера
+    private static final long NOISE_BYTES = 1_024;
+
+    @Test
+    void repeatedPriceReadsAreAllocationFree(TestReporter reporter) {
+        com.sun.management.ThreadMXBean threads = allocationCounter();
+        Pizza pizza = pizzaWithToppings();
+        Money first = pizza.getPrice();
+
+        // Прогрев, чтобы замер не учитывал работу интерпретатора и JIT
+        readPrices(pizza, first);
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        readPrices(pizza, first);
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+
+        reporter.publishEntry("pizza.price.bytesPerMillionReads", Long.toString(allocated));
+        assertTrue(allocated < NOISE_BYTES, "Price reads allocated " + allocated + " bytes");
+    }
+
+    @Test
+    void priceCacheIsRefreshedAfterToppingPriceChange() {
+        Ingredient cheese = IngredientRegistry.intern("Test " + UUID.randomUUID(), 1.00);
+        Pizza pizza = new Pizza("alloc-2", "Cheese", PizzaSize.MEDIUM, DoughType.THIN, Money.of(8.00));
+        pizza.addTopping(new Topping(cheese, Money.of(1.00)));
+        Money before = pizza.getPrice();
+        assertSame(before, pizza.getPrice());
+
+        cheese.setPricePerUnit(1.50);
+        BitSet changed = new BitSet();
+        changed.set(cheese.getOrdinal());
+        ToppingRegistry.refreshPrices(changed);
+
+        assertEquals(before.add(Money.of(0.50)), pizza.getPrice());
+    }
+
+    private static void readPrices(Pizza pizza, Money expected) {
+        for (int i = 0; i < READS; i++) {
+            if (pizza.getPrice() != expected) {
+                throw new AssertionError("Cached price was recomputed");
+            }
+        }
+    }
+
+    private static Pizza pizzaWithToppings() {
+        Pizza pizza = new Pizza("alloc-1", "Alloc", PizzaSize.LARGE, DoughType.TRADITIONAL, Money.of(10.00));
+        for (int i = 0; i < 4; i++) {
+            Ingredient ingredient = IngredientRegistry.intern("Test " + UUID.randomUUID(), 0.80);
+            pizza.addTopping(new Topping(ingredient, Money.of(1.20)));
+        }
+        return pizza;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean,
+            "JVM does not expose per-thread allocation counters");
+        com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported(), "Allocation counting is not supported");
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+    }
+}
@@ -0,0 +1,94 @@
+package org.pizzeria.domain.order;
+
+import org.junit.jupiter.api.Test;
+import org.pizzeria.domain.common.Email;
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.common.OrderStatus;
+import org.pizzeria.domain.common.PhoneNumber;
+import org.pizzeria.domain.menu.Drink;
+import org.pizzeria.domain.user.Customer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Изменение количества через OrderItem проходит через заказ,
+ * поэтому закешированные подытог и число позиций остаются верными.
+ * Тесты запускаются с -Dpizzeria.order.verifyTotals=true (см. build.gradle.kts).
+ */
+class OrderTest {
+    private final Customer customer = new Customer("c1", "Ann",
+        new Email("ann@example.com"), new PhoneNumber("+375291234567"), "hash");
+    private final Drink cola = new Drink("d1", "Cola", 500, Money.of(2.50));
+    private final Drink water = new Drink("d2", "Water", 500, Money.of(1.25));
+
+    @Test
+    void itemQuantityChangesUpdateOrderTotals() {
+        Order order = new Order(customer);
+        order.addItem(cola, 1);
+        order.addItem(water, 2);
+        OrderItem colaLine = order.getItems().get(0);
+
+        colaLine.setQuantity(4);
+        assertEquals(Money.of(12.50), order.getSubtotal());
+        assertEquals(6, order.getItemCount());
+
+        colaLine.incrementQuantity();
+        colaLine.decrementQuantity();
+        colaLine.decrementQuantity();
+        assertEquals(3, colaLine.getQuantity());
+        assertEquals(Money.of(10.00), order.getSubtotal());
+        assertEquals(Money.of(10.00), order.getTotal());
+        assertEquals(5, order.getItemCount());
+    }
+
+    @Test
+    void itemOfLockedOrderCannotBeChanged() throws Exception {
+        Order order = new Order(customer);
+        order.addItem(cola, 2);
+        OrderItem line = order.getItems().get(0);
+        order.transitionTo(OrderStatus.CONFIRMED);
+
+        assertThrows(IllegalStateException.class, () -> line.setQuantity(5));
+        assertThrows(IllegalStateException.class, line::incrementQuantity);
+        assertEquals(2, line.getQuantity());
+        assertEquals(Money.of(5.00), order.getSubtotal());
+    }
+
+    @Test
+    void removedItemNoLongerAffectsOrder() {
+        Order order = new Order(customer);
+        order.addItem(cola, 1);
+        order.addItem(water, 1);
+        OrderItem removed = order.getItems().get(0);
+        order.removeItem(cola);
+
+        removed.setQuantity(10);
+
+        assertEquals(10, removed.getQuantity());
+        assertEquals(Money.of(1.25), order.getSubtotal());
+        assertEquals(1, order.getItemCount());
+    }
+
+    @Test
+    void snapshotItemsUpdateOnlyTheSnapshot() {
+        Order order = new Order(customer);
+        order.addItem(cola, 1);
+        Order snapshot = order.snapshot();
+
+        snapshot.getItems().get(0).setQuantity(3);
+
+        assertEquals(Money.of(7.50), snapshot.getSubtotal());
+        assertEquals(Money.of(2.50), order.getSubtotal());
+    }
+
+    @Test
+    void decrementBelowOneIsRejected() {
+        Order order = new Order(customer);
+        order.addItem(cola, 1);
+        OrderItem line = order.getItems().get(0);
+
+        assertThrows(IllegalStateException.class, line::decrementQuantity);
+        assertEquals(1, order.getItemCount());
+    }
+}
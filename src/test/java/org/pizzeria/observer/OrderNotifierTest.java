@@ -0,0 +1,145 @@
+package org.pizzeria.observer;
+
+import org.junit.jupiter.api.Test;
+import org.pizzeria.domain.common.Email;
+import org.pizzeria.domain.common.OrderStatus;
+import org.pizzeria.domain.common.PhoneNumber;
+import org.pizzeria.domain.order.Order;
+import org.pizzeria.domain.user.Customer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Асинхронная доставка событий: порядок, статус на момент отправки
+ * и доставка при остановленном executor.
+ */
+class OrderNotifierTest {
+    private final Customer customer = new Customer("c1", "Ann",
+        new Email("ann@example.com"), new PhoneNumber("+375291234567"), "hash");
+
+    @Test
+    void delayedEventsReportStatusAtDispatchTime() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            OrderNotifier notifier = new OrderNotifier(pool);
+            RecordingObserver observer = new RecordingObserver();
+            notifier.addObserver(observer);
+            Order order = new Order(customer);
+
+            notifier.notifyOrderCreated(order);
+            order.setStatus(OrderStatus.CONFIRMED);
+            notifier.notifyOrderStatusChanged(order);
+            order.setStatus(OrderStatus.PREPARING);
+            notifier.notifyOrderStatusChanged(order);
+            observer.release.countDown();
+            notifier.flush();
+
+            assertEquals(List.of("created DRAFT", "status CONFIRMED", "status PREPARING"), observer.events);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void chainedEventIsDeliveredWhenExecutorIsShutDown() throws Exception {
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        OrderNotifier notifier = new OrderNotifier(pool);
+        RecordingObserver observer = new RecordingObserver();
+        notifier.addObserver(observer);
+        Order order = new Order(customer);
+
+        notifier.notifyOrderCreated(order);
+        order.setStatus(OrderStatus.CONFIRMED);
+        notifier.notifyOrderStatusChanged(order);
+        // Второе событие ждет первое и отправится в executor уже после остановки
+        pool.shutdown();
+        observer.release.countDown();
+        notifier.flush();
+
+        assertEquals(List.of("created DRAFT", "status CONFIRMED"), observer.events);
+        assertEquals(0, notifier.getPendingOrderCount());
+        assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void eventSentDuringCloseWaitsForQueuedEventsOfSameOrder() throws Exception {
+        OrderNotifier notifier = OrderNotifier.async(2);
+        RecordingObserver observer = new RecordingObserver();
+        notifier.addObserver(observer);
+        Order order = new Order(customer);
+
+        notifier.notifyOrderCreated(order);
+        order.setStatus(OrderStatus.CONFIRMED);
+        notifier.notifyOrderStatusChanged(order);
+        Thread closer = new Thread(notifier::close);
+        closer.start();
+        // close() ждет первое событие; новое событие ставится за ним, а не доставляется сразу
+        Thread.sleep(50);
+        order.setStatus(OrderStatus.PREPARING);
+        notifier.notifyOrderStatusChanged(order);
+        observer.release.countDown();
+        closer.join(5_000);
+
+        assertEquals(List.of("created DRAFT", "status CONFIRMED", "status PREPARING"), observer.events);
+        assertEquals(0, notifier.getPendingOrderCount());
+    }
+
+    @Test
+    void flushLeavesNoPendingOrders() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            OrderNotifier notifier = new OrderNotifier(pool);
+            notifier.addObserver(new RecordingObserver());
+            for (int round = 0; round < 200; round++) {
+                for (int i = 0; i < 20; i++) {
+                    notifier.notifyOrderStatusChanged(new Order(customer));
+                }
+                notifier.flush();
+                assertEquals(0, notifier.getPendingOrderCount());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Запоминает события; первое событие задерживается до release
+     */
+    private static final class RecordingObserver implements OrderObserver {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public void onOrderCreated(Order order) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add("created " + order.getStatus().name());
+        }
+
+        @Override
+        public void onOrderStatusChanged(Order order) {
+            events.add("status " + order.getStatus().name());
+        }
+
+        @Override
+        public void onOrderCancelled(Order order) {
+            events.add("cancelled " + order.getStatus().name());
+        }
+
+        @Override
+        public void onOrderCompleted(Order order) {
+            events.add("completed " + order.getStatus().name());
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package org.pizzeria.service;
+
+import org.junit.jupiter.api.Test;
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.menu.Drink;
+import org.pizzeria.domain.menu.MenuItem;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Лидеры продаж: порядок и вытеснение в top-K, переключение окон
+ * и учет запоздавших продаж по времени продажи.
+ */
+class BestSellerServiceTest {
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-10-12T10:15:00Z"));
+    private final Drink cola = new Drink("d1", "Cola", 500, Money.of(2.50));
+    private final Drink water = new Drink("d2", "Water", 500, Money.of(1.25));
+    private final Drink juice = new Drink("d3", "Juice", 300, Money.of(3.00));
+    private final Drink tea = new Drink("d4", "Tea", 300, Money.of(1.75));
+
+    @Test
+    void topKIsOrderedLimitedAndEvictsTheSmallest() {
+        BestSellerService service = new BestSellerService(3, clock);
+        service.record(cola, 5);
+        service.record(water, 2);
+        service.record(juice, 7);
+        service.record(tea, 1); // меньше всех - не попадает в список из трех
+
+        assertEquals(List.of("Juice", "Cola", "Water"), names(service.getTop(BestSellerService.Window.HOUR, 10)));
+        assertEquals(List.of("Juice"), names(service.getTop(BestSellerService.Window.HOUR, 1)));
+
+        service.record(tea, 9); // 10 продаж - вытесняет последнего и встает первым
+        assertEquals(List.of("Tea", "Juice", "Cola"), names(service.getTop(BestSellerService.Window.HOUR, 10)));
+        assertEquals(10, service.getTop(BestSellerService.Window.HOUR, 1).get(0).getCount());
+    }
+
+    @Test
+    void hourWindowRollsOverAndKeepsThePreviousOne() {
+        BestSellerService service = new BestSellerService(5, clock);
+        service.record(cola, 4);
+
+        clock.set(Instant.parse("2026-10-12T11:05:00Z"));
+        service.record(water, 1);
+
+        assertEquals(List.of("Water"), names(service.getTop(BestSellerService.Window.HOUR, 5)));
+        assertEquals(List.of("Cola"), names(service.getPreviousTop(BestSellerService.Window.HOUR, 5)));
+        assertEquals(List.of("Cola", "Water"), names(service.getTop(BestSellerService.Window.DAY, 5)));
+
+        // Через два часа предыдущее окно не примыкает к текущему и не показывается
+        clock.set(Instant.parse("2026-10-12T13:30:00Z"));
+        assertTrue(service.getTop(BestSellerService.Window.HOUR, 5).isEmpty());
+        assertTrue(service.getPreviousTop(BestSellerService.Window.HOUR, 5).isEmpty());
+    }
+
+    @Test
+    void lateSaleIsCountedInTheWindowOfItsTimestamp() {
+        BestSellerService service = new BestSellerService(5, clock);
+        clock.set(Instant.parse("2026-10-12T11:05:00Z"));
+        service.record(cola, 1);
+
+        service.record(juice, 3, Instant.parse("2026-10-12T10:50:00Z"));
+        service.record(tea, 2, Instant.parse("2026-10-12T08:00:00Z"));
+
+        assertEquals(List.of("Cola"), names(service.getTop(BestSellerService.Window.HOUR, 5)));
+        assertEquals(List.of("Juice"), names(service.getPreviousTop(BestSellerService.Window.HOUR, 5)));
+        // Для часовых окон продажа в 08:00 слишком старая, для дневного - своя
+        assertEquals(List.of("Juice", "Tea", "Cola"), names(service.getTop(BestSellerService.Window.DAY, 5)));
+    }
+
+    @Test
+    void keysWithEqualHashCodeDoNotShareCounters() {
+        assertEquals("Aa".hashCode(), "BB".hashCode());
+        CountMinSketch sketch = new CountMinSketch(4, 4096);
+        sketch.add("Aa", 100);
+
+        assertEquals(100, sketch.estimate("Aa"));
+        assertEquals(0, sketch.estimate("BB"));
+    }
+
+    private static List<String> names(List<BestSellerService.BestSeller> top) {
+        return top.stream().map(BestSellerService.BestSeller::getItem).map(MenuItem::getName)
+            .collect(Collectors.toList());
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void set(Instant now) {
+            this.now = now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
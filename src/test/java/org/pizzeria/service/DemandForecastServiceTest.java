@@ -0,0 +1,163 @@
+package org.pizzeria.service;
+
+import org.junit.jupiter.api.Test;
+import org.pizzeria.domain.common.DoughType;
+import org.pizzeria.domain.common.Email;
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.common.PhoneNumber;
+import org.pizzeria.domain.common.PizzaSize;
+import org.pizzeria.domain.menu.Ingredient;
+import org.pizzeria.domain.menu.IngredientRegistry;
+import org.pizzeria.domain.menu.Pizza;
+import org.pizzeria.domain.menu.Topping;
+import org.pizzeria.domain.order.Order;
+import org.pizzeria.domain.user.Customer;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Почасовой прогноз расхода: заказы одного часа копятся до его закрытия,
+ * простой закрывается нулевыми часами, сезонность выучивается по часу недели.
+ */
+class DemandForecastServiceTest {
+    // Понедельник 00:00 UTC - час недели 0
+    private static final Instant MONDAY = Instant.parse("2026-03-02T00:00:00Z");
+
+    private final Customer customer = new Customer("c1", "Ann",
+        new Email("ann@example.com"), new PhoneNumber("+375291234567"), "hash");
+    private final Ingredient cheese = IngredientRegistry.intern("Test " + UUID.randomUUID(), 1.0);
+    private final Pizza pizza = pizzaWith(cheese);
+
+    @Test
+    void ordersOfOneHourAreBatchedIntoOneObservation() {
+        MutableClock batchedClock = new MutableClock(MONDAY.plusSeconds(60));
+        MutableClock singleClock = new MutableClock(MONDAY.plusSeconds(60));
+        DemandForecastService batched = new DemandForecastService(0.5, 0.1, 0.3, batchedClock);
+        DemandForecastService single = new DemandForecastService(0.5, 0.1, 0.3, singleClock);
+
+        for (int i = 0; i < 10; i++) {
+            batchedClock.advance(Duration.ofMinutes(5));
+            batched.recordOrder(order(2));
+        }
+        single.recordOrder(order(20));
+        assertEquals(0, batched.getObservedHours());
+
+        batchedClock.set(MONDAY.plus(Duration.ofHours(1)));
+        singleClock.set(MONDAY.plus(Duration.ofHours(1)));
+
+        assertArrayEquals(single.forecast(cheese, 24), batched.forecast(cheese, 24), 1e-9);
+        assertEquals(1, batched.getObservedHours());
+        assertTrue(batched.forecastTotal(cheese, 24) > 0);
+    }
+
+    @Test
+    void idleGapClosesRecordedHourFirstThenEmptyHours() {
+        MutableClock jumpClock = new MutableClock(MONDAY);
+        MutableClock stepClock = new MutableClock(MONDAY);
+        DemandForecastService jumped = new DemandForecastService(0.5, 0.2, 0.3, jumpClock);
+        DemandForecastService stepped = new DemandForecastService(0.5, 0.2, 0.3, stepClock);
+        jumped.recordOrder(order(6));
+        stepped.recordOrder(order(6));
+
+        jumpClock.set(MONDAY.plus(Duration.ofHours(5)));
+        for (int hour = 1; hour <= 5; hour++) {
+            stepClock.set(MONDAY.plus(Duration.ofHours(hour)));
+            stepped.forecast(cheese, 1);
+        }
+
+        assertArrayEquals(stepped.forecast(cheese, 48), jumped.forecast(cheese, 48), 1e-9);
+        assertEquals(5, jumped.getObservedHours());
+    }
+
+    @Test
+    void gapLongerThanWeekReplaysOnlyLastWeek() {
+        MutableClock clock = new MutableClock(MONDAY);
+        DemandForecastService service = new DemandForecastService(0.5, 0.2, 0.3, clock);
+        service.recordOrder(order(3));
+
+        clock.set(MONDAY.plus(Duration.ofDays(30)));
+        service.forecast(cheese, 1);
+
+        // Записанный час плюс последняя неделя нулевых часов
+        assertEquals(1 + DemandForecastService.HOURS_PER_WEEK, service.getObservedHours());
+    }
+
+    @Test
+    void learnsHourOfWeekSeasonality() {
+        MutableClock clock = new MutableClock(MONDAY);
+        DemandForecastService service = new DemandForecastService(0.1, 0.01, 0.5, clock);
+        // Пятница 18:00 - пик; остальные часы - небольшой фоновый спрос
+        int peakHour = 4 * 24 + 18;
+        for (int hour = 0; hour < 6 * DemandForecastService.HOURS_PER_WEEK; hour++) {
+            clock.set(MONDAY.plus(Duration.ofHours(hour)));
+            int hourOfWeek = hour % DemandForecastService.HOURS_PER_WEEK;
+            service.recordOrder(order(hourOfWeek == peakHour ? 40 : 1));
+        }
+        clock.set(MONDAY.plus(Duration.ofDays(6 * 7)));
+
+        double[] week = service.forecast(cheese, DemandForecastService.HOURS_PER_WEEK);
+
+        int busiest = 0;
+        for (int hour = 1; hour < week.length; hour++) {
+            if (week[hour] > week[busiest]) {
+                busiest = hour;
+            }
+        }
+        assertEquals(peakHour, busiest);
+        assertTrue(week[peakHour] > 10 * week[peakHour - 6], "Peak should stand out from the same day");
+        assertEquals(week[peakHour], service.forecast(cheese, peakHour + 1)[peakHour], 1e-9);
+    }
+
+    private Order order(int pizzas) {
+        Order order = new Order(customer);
+        order.addItem(pizza, pizzas);
+        return order;
+    }
+
+    private static Pizza pizzaWith(Ingredient ingredient) {
+        Pizza pizza = new Pizza("p-" + UUID.randomUUID(), "Cheese", PizzaSize.MEDIUM,
+            DoughType.THIN, Money.of(8.00));
+        pizza.addTopping(new Topping(ingredient, Money.of(1.00)));
+        return pizza;
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void set(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
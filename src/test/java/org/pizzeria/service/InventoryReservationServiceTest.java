@@ -0,0 +1,225 @@
+package org.pizzeria.service;
+
+import org.junit.jupiter.api.Test;
+import org.pizzeria.domain.common.DoughType;
+import org.pizzeria.domain.common.Email;
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.common.OrderStatus;
+import org.pizzeria.domain.common.PhoneNumber;
+import org.pizzeria.domain.common.PizzaSize;
+import org.pizzeria.domain.menu.Ingredient;
+import org.pizzeria.domain.menu.IngredientRegistry;
+import org.pizzeria.domain.menu.Pizza;
+import org.pizzeria.domain.menu.Topping;
+import org.pizzeria.domain.order.Order;
+import org.pizzeria.domain.user.Customer;
+import org.pizzeria.exception.OutOfStockException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Резерв ингредиентов под заказ: подтверждение расхода, возврат при отмене
+ * и снятие просроченного резерва по управляемым часам.
+ */
+class InventoryReservationServiceTest {
+    private static final Duration TIMEOUT = Duration.ofMinutes(15);
+
+    private final Customer customer = new Customer("c1", "Ann",
+        new Email("ann@example.com"), new PhoneNumber("+375291234567"), "hash");
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-03-02T12:00:00Z"));
+
+    @Test
+    void reserveThenCommitKeepsStockConsumed() throws Exception {
+        Ingredient cheese = newIngredient(10);
+        InventoryReservationService reservations = new InventoryReservationService(TIMEOUT, clock);
+        try (OrderService service = new OrderService(null, null, reservations)) {
+            Order order = orderOf(service, cheese, 3);
+
+            service.updateOrderStatus(order, OrderStatus.PENDING_PAYMENT);
+            assertEquals(7, cheese.getStockQuantity());
+            assertTrue(reservations.hasReservation(order));
+
+            for (OrderStatus next : new OrderStatus[]{OrderStatus.PAID, OrderStatus.CONFIRMED,
+                    OrderStatus.PREPARING, OrderStatus.READY}) {
+                service.updateOrderStatus(order, next);
+            }
+            service.completeOrder(order);
+
+            assertFalse(reservations.hasReservation(order));
+            assertEquals(7, cheese.getStockQuantity());
+        }
+    }
+
+    @Test
+    void reserveThenCancelReturnsStock() throws Exception {
+        Ingredient cheese = newIngredient(10);
+        InventoryReservationService reservations = new InventoryReservationService(TIMEOUT, clock);
+        try (OrderService service = new OrderService(null, null, reservations)) {
+            Order order = orderOf(service, cheese, 4);
+            service.updateOrderStatus(order, OrderStatus.CONFIRMED);
+            assertEquals(6, cheese.getStockQuantity());
+
+            service.cancelOrder(order);
+
+            assertFalse(reservations.hasReservation(order));
+            assertEquals(10, cheese.getStockQuantity());
+        }
+    }
+
+    @Test
+    void failedReservationLeavesStockAndStatusUnchanged() throws Exception {
+        Ingredient cheese = newIngredient(2);
+        InventoryReservationService reservations = new InventoryReservationService(TIMEOUT, clock);
+        try (OrderService service = new OrderService(null, null, reservations)) {
+            Order order = orderOf(service, cheese, 3);
+
+            assertThrows(OutOfStockException.class,
+                () -> service.updateOrderStatus(order, OrderStatus.PENDING_PAYMENT));
+
+            assertEquals(OrderStatus.DRAFT, order.getStatus());
+            assertEquals(2, cheese.getStockQuantity());
+            assertEquals(0, reservations.getReservationCount());
+        }
+    }
+
+    @Test
+    void unpaidReservationExpiresAfterTimeout() throws Exception {
+        Ingredient cheese = newIngredient(10);
+        InventoryReservationService reservations = new InventoryReservationService(TIMEOUT, clock);
+        try (OrderService service = new OrderService(null, null, reservations)) {
+            Order unpaid = orderOf(service, cheese, 2);
+            Order confirmed = orderOf(service, cheese, 3);
+            service.updateOrderStatus(unpaid, OrderStatus.PENDING_PAYMENT);
+            service.updateOrderStatus(confirmed, OrderStatus.CONFIRMED);
+
+            clock.advance(TIMEOUT);
+            assertEquals(0, service.expireReservations());
+
+            clock.advance(Duration.ofSeconds(1));
+            assertEquals(1, service.expireReservations());
+
+            // Подтвержденный заказ не ждет оплаты, его резерв остается
+            assertFalse(reservations.hasReservation(unpaid));
+            assertTrue(reservations.hasReservation(confirmed));
+            assertEquals(7, cheese.getStockQuantity());
+
+            // Оплата после снятия резерва резервирует заново
+            service.updateOrderStatus(unpaid, OrderStatus.PAID);
+            assertEquals(5, cheese.getStockQuantity());
+        }
+    }
+
+    @Test
+    void expiryTimerRunsOnCallerScheduler() throws Exception {
+        Ingredient cheese = newIngredient(10);
+        InventoryReservationService reservations =
+            new InventoryReservationService(Duration.ofMillis(200), clock);
+        ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            try (OrderService service = new OrderService(null, null, reservations, scheduler)) {
+                Order order = orderOf(service, cheese, 2);
+                service.updateOrderStatus(order, OrderStatus.PENDING_PAYMENT);
+                assertEquals(8, cheese.getStockQuantity());
+
+                clock.advance(Duration.ofSeconds(1));
+                long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+                while (reservations.hasReservation(order) && System.nanoTime() < deadline) {
+                    Thread.sleep(10);
+                }
+
+                assertFalse(reservations.hasReservation(order));
+                assertEquals(10, cheese.getStockQuantity());
+            }
+            // Планировщик принадлежит вызывающему коду и после close() продолжает работать
+            assertFalse(scheduler.isShutdown());
+        } finally {
+            scheduler.shutdownNow();
+        }
+    }
+
+    @Test
+    void unclosedServiceDoesNotLeakExpiryThread() throws Exception {
+        InventoryReservationService reservations =
+            new InventoryReservationService(Duration.ofMillis(40), clock);
+        int before = expiryThreads();
+        createAndForget(reservations);
+        assertEquals(before + 1, expiryThreads());
+
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (expiryThreads() > before && System.nanoTime() < deadline) {
+            System.gc();
+            Thread.sleep(20);
+        }
+
+        assertTrue(expiryThreads() <= before, "reservation-expiry thread outlived its service");
+    }
+
+    private static void createAndForget(InventoryReservationService reservations) {
+        new OrderService(null, null, reservations);
+    }
+
+    private static int expiryThreads() {
+        int count = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().equals("reservation-expiry") && thread.isAlive()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private Order orderOf(OrderService service, Ingredient ingredient, int pizzas) {
+        Pizza pizza = new Pizza("p-" + UUID.randomUUID(), "Cheese", PizzaSize.MEDIUM,
+            DoughType.THIN, Money.of(8.00));
+        pizza.addTopping(new Topping(ingredient, Money.of(1.00)));
+        Order order = service.createOrder(customer);
+        service.addItemToOrder(order, pizza, pizzas);
+        return order;
+    }
+
+    private static Ingredient newIngredient(int stock) {
+        Ingredient ingredient = IngredientRegistry.intern("Test " + UUID.randomUUID(), 1.0);
+        ingredient.useStock(ingredient.getStockQuantity());
+        ingredient.addStock(stock);
+        return ingredient;
+    }
+
+    private static final class MutableClock extends Clock {
+        private volatile Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package org.pizzeria.service;
+
+import org.junit.jupiter.api.Test;
+import org.pizzeria.domain.common.DoughType;
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.common.PizzaSize;
+import org.pizzeria.domain.menu.Drink;
+import org.pizzeria.domain.menu.Ingredient;
+import org.pizzeria.domain.menu.IngredientRegistry;
+import org.pizzeria.domain.menu.MenuAvailability;
+import org.pizzeria.domain.menu.MenuItem;
+import org.pizzeria.domain.menu.Pizza;
+import org.pizzeria.domain.menu.Topping;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Публикация черновика не меняет позиции, на которые ссылаются прежние версии меню.
+ */
+class MenuCatalogTest {
+
+    @Test
+    void publishedChangesDoNotLeakIntoPinnedSnapshot() {
+        MenuCatalog catalog = new MenuCatalog();
+        Drink cola = new Drink("d1", "Cola", 500, Money.of(2.50));
+        Pizza pizza = new Pizza("p1", "Plain", PizzaSize.SMALL, DoughType.THIN, Money.of(8.00));
+        catalog.add(cola);
+        catalog.add(pizza);
+        MenuSnapshot v1 = catalog.current();
+        Money pizzaPrice = pizza.getPrice();
+
+        catalog.edit()
+            .setPrice("d1", Money.of(9.99))
+            .setPrice("p1", Money.of(12.00))
+            .setAvailable("p1", false)
+            .publish();
+
+        assertEquals(Money.of(2.50), v1.priceOf("d1"));
+        assertEquals(Money.of(2.50), v1.findById("d1").get().getPrice());
+        assertEquals(pizzaPrice, v1.findById("p1").get().getPrice());
+        assertTrue(v1.findById("p1").get().isAvailable());
+
+        MenuSnapshot v2 = catalog.current();
+        MenuItem revised = v2.findById("d1").get();
+        assertNotSame(cola, revised);
+        assertEquals("d1", revised.getId());
+        assertEquals(Money.of(9.99), revised.getPrice());
+        assertFalse(v2.findById("p1").get().isAvailable());
+        assertEquals(Money.of(12.00), ((Pizza) v2.findById("p1").get()).getBasePrice());
+    }
+
+    @Test
+    void staleDraftIsRejected() {
+        MenuCatalog catalog = new MenuCatalog();
+        catalog.add(new Drink("d1", "Cola", 500, Money.of(2.50)));
+        MenuDraft stale = catalog.edit().setPrice("d1", Money.of(3.00));
+        catalog.edit().setPrice("d1", Money.of(4.00)).publish();
+
+        assertThrows(IllegalStateException.class, stale::publish);
+        assertEquals(Money.of(4.00), catalog.current().priceOf("d1"));
+    }
+
+    @Test
+    void removedItemsReleaseTheirOrdinals() {
+        try (MenuCatalog catalog = new MenuCatalog()) {
+            catalog.add(new Drink("d1", "Cola", 500, Money.of(2.50)));
+            catalog.add(new Drink("d2", "Water", 500, Money.of(1.25)));
+            int colaOrdinal = catalog.getAvailability().ordinalOf("d1");
+            int waterOrdinal = catalog.getAvailability().ordinalOf("d2");
+
+            for (int i = 0; i < 100; i++) {
+                catalog.remove("d1");
+                catalog.add(new Drink("t" + i, "Tea " + i, 300, Money.of(1.75)));
+                assertEquals(colaOrdinal, catalog.getAvailability().ordinalOf("t" + i));
+                catalog.remove("t" + i);
+            }
+
+            assertEquals(-1, catalog.getAvailability().ordinalOf("d1"));
+            assertEquals(waterOrdinal, catalog.getAvailability().ordinalOf("d2"));
+            assertTrue(catalog.isAvailable("d2"));
+            assertFalse(catalog.isAvailable("t99"));
+        }
+    }
+
+    @Test
+    void offMenuPizzaIsUnavailableWithoutIngredientStock() {
+        try (MenuCatalog catalog = new MenuCatalog()) {
+            Ingredient basil = IngredientRegistry.intern("Test " + UUID.randomUUID(), 1.0);
+            basil.useStock(basil.getStockQuantity());
+            basil.addStock(1);
+            Pizza offMenu = new Pizza("p-off", "Basil", PizzaSize.SMALL, DoughType.THIN, Money.of(8.00));
+            offMenu.addTopping(new Topping(basil, Money.of(1.00)));
+            MenuAvailability availability = catalog.getAvailability();
+
+            assertTrue(availability.isAvailable(offMenu));
+
+            basil.useStock(1);
+            assertFalse(availability.isAvailable(offMenu));
+
+            basil.addStock(5);
+            offMenu.setAvailable(false);
+            assertFalse(availability.isAvailable(offMenu));
+            assertTrue(availability.isAvailable(new Drink("d-off", "Cola", 500, Money.of(2.50))));
+        }
+    }
+}
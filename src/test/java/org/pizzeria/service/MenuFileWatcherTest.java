@@ -0,0 +1,78 @@
+package org.pizzeria.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pizzeria.domain.common.Money;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Наблюдение за файлом меню: перезагрузка после изменения и сохранение
+ * меню при ошибочной записи.
+ */
+class MenuFileWatcherTest {
+    private static final long TIMEOUT_MILLIS = 10_000;
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void rootPathIsRejected() {
+        MenuCatalog catalog = new MenuCatalog();
+        try {
+            Path root = dir.getRoot();
+            assertThrows(IllegalArgumentException.class, () -> new MenuFileWatcher(new MenuLoader(catalog), root));
+        } finally {
+            catalog.close();
+        }
+    }
+
+    @Test
+    void fileChangesAreReloadedAndErrorsKeepTheMenu() throws Exception {
+        Path file = dir.resolve("menu.csv");
+        Files.write(file, List.of("d-1,DRINK,Cola,2.50,true,330"), StandardCharsets.UTF_8);
+        MenuCatalog catalog = new MenuCatalog();
+        try (MenuFileWatcher watcher = new MenuFileWatcher(new MenuLoader(catalog), file)) {
+            watcher.start();
+            long initial = watcher.getLastResult().getVersion();
+
+            long started = System.currentTimeMillis();
+            replace(file, "d-1,DRINK,Cola,2.80,true,330");
+            while (watcher.getLastResult().getVersion() == initial
+                && System.currentTimeMillis() - started < TIMEOUT_MILLIS) {
+                Thread.sleep(20);
+            }
+            assertTrue(watcher.getLastResult().getVersion() > initial, "menu was not reloaded");
+            assertEquals(Money.of(2.80), catalog.current().priceOf("d-1"));
+
+            long version = catalog.current().getVersion();
+            started = System.currentTimeMillis();
+            replace(file, "d-1,DRINK,Cola,broken,true,330");
+            while (watcher.getLastError() == null && System.currentTimeMillis() - started < TIMEOUT_MILLIS) {
+                Thread.sleep(20);
+            }
+            assertNotNull(watcher.getLastError());
+            assertEquals(version, catalog.current().getVersion());
+            assertEquals(Money.of(2.80), catalog.current().priceOf("d-1"));
+        } finally {
+            catalog.close();
+        }
+    }
+
+    /**
+     * Заменяет файл целиком, чтобы наблюдатель не увидел его наполовину записанным
+     */
+    private void replace(Path file, String line) throws Exception {
+        Path temp = Files.write(dir.resolve("menu.tmp"), List.of(line), StandardCharsets.UTF_8);
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,127 @@
+package org.pizzeria.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.menu.Drink;
+import org.pizzeria.domain.menu.IngredientRegistry;
+import org.pizzeria.domain.menu.Pizza;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Загрузка меню из CSV: классификация разницы, откат при ошибке
+ * и удаление только позиций, загруженных этим загрузчиком.
+ */
+class MenuLoaderTest {
+    @TempDir
+    Path dir;
+
+    private final MenuCatalog catalog = new MenuCatalog();
+    private final MenuLoader loader = new MenuLoader(catalog);
+
+    @AfterEach
+    void closeCatalog() {
+        catalog.close();
+    }
+
+    @Test
+    void reloadClassifiesTheDifference() throws Exception {
+        Path file = write("menu.csv",
+            "id,category,name,price,available,extra",
+            "p-1,PIZZA,Margherita,8.00,true,MEDIUM,THIN,Mozzarella:1.50",
+            "d-1,DRINK,Cola,2.50,true,330",
+            "d-2,DRINK,Water,1.00,true,500",
+            "s-1,DESSERT,Tiramisu,5.00,true,150");
+        MenuLoader.ReloadResult first = loader.reload(file);
+        assertEquals(List.of("p-1", "d-1", "d-2", "s-1"), first.getAdded());
+        assertEquals(4, catalog.size());
+
+        write("menu.csv",
+            "p-1,PIZZA,Margherita,8.00,true,LARGE,THIN,Mozzarella:1.50",
+            "d-1,DRINK,Cola,2.75,true,330",
+            "s-1,DESSERT,Tiramisu,5.00,false,150",
+            "d-3,DRINK,Juice,3.00,true,300");
+        MenuLoader.ReloadResult second = loader.reload(file);
+
+        assertEquals(List.of("d-3"), second.getAdded());
+        assertEquals(List.of("d-2"), second.getRemoved());
+        assertEquals(List.of("d-1"), second.getRepriced());
+        assertEquals(List.of("p-1", "s-1"), second.getUpdated());
+        assertEquals(first.getVersion() + 1, second.getVersion());
+        assertEquals(Money.of(2.75), catalog.current().priceOf("d-1"));
+        assertFalse(catalog.findById("s-1").get().isAvailable());
+
+        MenuLoader.ReloadResult unchanged = loader.reload(file);
+        assertFalse(unchanged.hasChanges());
+        assertEquals(second.getVersion(), unchanged.getVersion());
+    }
+
+    @Test
+    void malformedLineLeavesCatalogAndRegistriesUntouched() throws Exception {
+        Path file = write("menu.csv", "d-1,DRINK,Cola,2.50,true,330");
+        loader.reload(file);
+        long version = catalog.current().getVersion();
+        String ingredient = "Test " + UUID.randomUUID();
+
+        write("menu.csv",
+            "d-1,DRINK,Cola,9.99,true,330",
+            "p-9,PIZZA,New,8.00,true,MEDIUM,THIN," + ingredient + ":1.00",
+            "d-2,DRINK,Water,not-a-price,true,500");
+        assertThrows(IllegalArgumentException.class, () -> loader.reload(file));
+
+        assertEquals(version, catalog.current().getVersion());
+        assertEquals(Money.of(2.50), catalog.current().priceOf("d-1"));
+        assertFalse(catalog.current().contains("p-9"));
+        assertTrue(IngredientRegistry.find(ingredient).isEmpty());
+    }
+
+    @Test
+    void duplicateIdIsRejected() throws Exception {
+        Path file = write("menu.csv", "d-1,DRINK,Cola,2.50,true,330", "d-1,DRINK,Cola,2.60,true,330");
+
+        assertThrows(IllegalArgumentException.class, () -> loader.reload(file));
+        assertEquals(0, catalog.size());
+    }
+
+    @Test
+    void onlyLoaderOwnedItemsAreRemoved() throws Exception {
+        catalog.add(new Drink("manual", "Lemonade", 400, Money.of(2.00)));
+        Path file = write("menu.csv", "d-1,DRINK,Cola,2.50,true,330");
+        loader.reload(file);
+
+        write("menu.csv", "# пустое меню");
+        MenuLoader.ReloadResult result = loader.reload(file);
+
+        assertEquals(List.of("d-1"), result.getRemoved());
+        assertTrue(catalog.current().contains("manual"));
+        assertFalse(catalog.current().contains("d-1"));
+    }
+
+    @Test
+    void unchangedPizzaKeepsItsInstance() throws Exception {
+        Path file = write("menu.csv", "p-1,PIZZA,Margherita,8.00,true,MEDIUM,THIN,Mozzarella:1.50|Basil:0.50");
+        loader.reload(file);
+        Pizza loaded = (Pizza) catalog.findById("p-1").get();
+
+        loader.reload(file);
+
+        assertTrue(loaded == catalog.findById("p-1").get());
+    }
+
+    private Path write(String name, String... lines) throws Exception {
+        Path file = dir.resolve(name);
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+}
@@ -0,0 +1,188 @@
+package org.pizzeria.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestReporter;
+import org.pizzeria.domain.common.Email;
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.common.OrderStatus;
+import org.pizzeria.domain.common.PhoneNumber;
+import org.pizzeria.domain.menu.Drink;
+import org.pizzeria.domain.order.Order;
+import org.pizzeria.domain.order.OrderItem;
+import org.pizzeria.domain.user.Customer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Стресс-тест OrderService: параллельные операции над одним заказом
+ * и над разными заказами не теряют обновлений и не портят индексы.
+ */
+class OrderServiceConcurrencyTest {
+    private static final int THREADS = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+    private static final int OPERATIONS = 2_000;
+
+    private final Customer customer = new Customer("c1", "Ann",
+        new Email("ann@example.com"), new PhoneNumber("+375291234567"), "hash");
+    private final Drink cola = new Drink("d1", "Cola", 500, Money.of(2.50));
+    private final Drink water = new Drink("d2", "Water", 500, Money.of(1.25));
+
+    @Test
+    void concurrentAddsToSameOrderAreNotLost() throws Exception {
+        OrderService service = new OrderService();
+        Order order = service.createOrder(customer);
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < OPERATIONS; i++) {
+                service.addItemToOrder(order, i % 2 == 0 ? cola : water, 1);
+            }
+        });
+
+        int total = THREADS * OPERATIONS;
+        assertEquals(total, order.getItemCount());
+        assertEquals(2, order.getItems().size());
+        for (OrderItem item : order.getItems()) {
+            assertEquals(total / 2, item.getQuantity());
+        }
+        Money expected = cola.getPrice().multiply(total / 2).add(water.getPrice().multiply(total / 2));
+        assertEquals(expected, order.getSubtotal());
+    }
+
+    @Test
+    void concurrentOperationsOnDifferentOrdersKeepIndexesConsistent() throws Exception {
+        OrderService service = new OrderService();
+        int ordersPerThread = 200;
+
+        runConcurrently(THREADS, thread -> {
+            for (int i = 0; i < ordersPerThread; i++) {
+                Order order = service.createOrder(customer);
+                service.addItemToOrder(order, cola, 1 + i % 3);
+                if (i % 2 == 0) {
+                    service.confirmOrder(order);
+                } else {
+                    service.cancelOrder(order);
+                }
+            }
+        });
+
+        int total = THREADS * ordersPerThread;
+        assertEquals(total, service.getAllOrders().size());
+        assertEquals(total, service.findOrdersByCustomer(customer).size());
+        assertEquals(total / 2, service.findOrdersByStatus(OrderStatus.CONFIRMED).size());
+        assertEquals(total / 2, service.findOrdersByStatus(OrderStatus.CANCELLED).size());
+        assertEquals(0, service.findOrdersByStatus(OrderStatus.DRAFT).size());
+        for (Order order : service.findOrdersByStatus(OrderStatus.CONFIRMED)) {
+            assertEquals(OrderStatus.CONFIRMED, order.getStatus());
+        }
+    }
+
+    @Test
+    void racingTransitionsOnSameOrderApplyExactlyOnce() throws Exception {
+        OrderService service = new OrderService();
+        for (int round = 0; round < 200; round++) {
+            Order order = service.createOrder(customer);
+            service.addItemToOrder(order, cola, 1);
+            AtomicInteger confirmed = new AtomicInteger();
+            AtomicInteger cancelled = new AtomicInteger();
+
+            runConcurrently(4, thread -> {
+                try {
+                    if (thread % 2 == 0) {
+                        service.confirmOrder(order);
+                        confirmed.incrementAndGet();
+                    } else {
+                        service.cancelOrder(order);
+                        cancelled.incrementAndGet();
+                    }
+                } catch (Exception expected) {
+                    // Проигравший переход отклоняется
+                }
+            });
+
+            OrderStatus status = order.getStatus();
+            assertTrue(status == OrderStatus.CONFIRMED || status == OrderStatus.CANCELLED);
+            // Отмена подтвержденного заказа допустима, обратный переход - нет
+            assertTrue(confirmed.get() <= 1 && cancelled.get() <= 1);
+            assertTrue(service.findOrdersByStatus(status).contains(order));
+            assertEquals(0, service.findOrdersByStatus(OrderStatus.DRAFT).stream()
+                .filter(o -> o == order).count());
+        }
+    }
+
+    @Test
+    void throughputOnDifferentOrdersScalesWithThreads(TestReporter reporter) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        assumeTrue(cores > 1, "Scaling needs more than one core");
+        int threads = Math.min(cores, 8);
+        OrderService service = new OrderService();
+        // Прогрев
+        measureOpsPerSecond(service, 1);
+        measureOpsPerSecond(service, threads);
+        double single = 0;
+        double parallel = 0;
+        for (int round = 0; round < 3; round++) {
+            single = Math.max(single, measureOpsPerSecond(service, 1));
+            parallel = Math.max(parallel, measureOpsPerSecond(service, threads));
+        }
+
+        double speedup = parallel / single;
+        reporter.publishEntry("orderService.threads", Integer.toString(threads));
+        reporter.publishEntry("orderService.speedup", String.format("%.2f", speedup));
+        // Разные заказы не делят блокировок, поэтому ждем хотя бы половину линейного роста
+        assertTrue(speedup >= threads * 0.5,
+            "Speedup " + speedup + " on " + threads + " threads is far from linear");
+    }
+
+    private double measureOpsPerSecond(OrderService service, int threads) throws Exception {
+        int perThread = 20_000;
+        long start = System.nanoTime();
+        runConcurrently(threads, thread -> {
+            Order order = service.createOrder(customer);
+            for (int i = 0; i < perThread; i++) {
+                service.addItemToOrder(order, i % 2 == 0 ? cola : water, 1);
+            }
+        });
+        double seconds = (System.nanoTime() - start) / 1e9;
+        return threads * perThread / seconds;
+    }
+
+    private interface Task {
+        void run(int thread) throws Exception;
+    }
+
+    /**
+     * Запускает задачу в threads потоках одновременно и пробрасывает первую ошибку
+     */
+    private static void runConcurrently(int threads, Task task) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<Void>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int thread = t;
+                Callable<Void> call = () -> {
+                    start.await();
+                    task.run(thread);
+                    return null;
+                };
+                futures.add(pool.submit(call));
+            }
+            start.countDown();
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.pizzeria.service;
+
+import org.junit.jupiter.api.Test;
+import org.pizzeria.domain.common.DoughType;
+import org.pizzeria.domain.common.Email;
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.common.OrderStatus;
+import org.pizzeria.domain.common.PhoneNumber;
+import org.pizzeria.domain.common.PizzaSize;
+import org.pizzeria.domain.menu.Drink;
+import org.pizzeria.domain.menu.Ingredient;
+import org.pizzeria.domain.menu.IngredientRegistry;
+import org.pizzeria.domain.menu.Pizza;
+import org.pizzeria.domain.menu.Topping;
+import org.pizzeria.domain.order.Order;
+import org.pizzeria.domain.user.Customer;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Цены топпингов и распространение изменения цены ингредиента
+ * на меню и заказы-черновики по обратным индексам.
+ */
+class PricePropagationServiceTest {
+    private final Customer customer = new Customer("c1", "Ann",
+        new Email("ann@example.com"), new PhoneNumber("+375291234567"), "hash");
+
+    @Test
+    void toppingKeepsItsPriceUntilIngredientPriceChanges() {
+        Ingredient cheese = IngredientRegistry.intern("Test " + UUID.randomUUID(), 2.00);
+        Topping topping = new Topping(cheese, Money.of(1.50));
+
+        // Цена ингредиента на момент создания уже входит в цену топпинга
+        assertEquals(Money.of(1.50), topping.getPrice());
+
+        cheese.setPricePerUnit(2.30);
+        assertEquals(Money.of(1.80), topping.getPrice());
+
+        cheese.setPricePerUnit(0.00);
+        assertEquals(Money.zero(), topping.getPrice());
+    }
+
+    @Test
+    void ingredientPriceChangeRepricesOnlyAffectedDraftLines() throws Exception {
+        Ingredient cheese = IngredientRegistry.intern("Test " + UUID.randomUUID(), 1.00);
+        Ingredient basil = IngredientRegistry.intern("Test " + UUID.randomUUID(), 1.00);
+        Pizza cheesy = pizza("p-cheese", cheese);
+        Pizza green = pizza("p-basil", basil);
+        Drink cola = new Drink("d1", "Cola", 500, Money.of(2.50));
+        MenuCatalog catalog = new MenuCatalog();
+        catalog.addAll(List.of(cheesy, green, cola));
+        try (OrderService service = new OrderService(null, catalog)) {
+            Order affected = service.createOrder(customer);
+            service.addItemToOrder(affected, cheesy, 2);
+            service.addItemToOrder(affected, green, 1);
+            Order untouched = service.createOrder(customer);
+            service.addItemToOrder(untouched, green, 1);
+            service.addItemToOrder(untouched, cola, 1);
+            Order confirmed = service.createOrder(customer);
+            service.addItemToOrder(confirmed, cheesy, 1);
+            service.updateOrderStatus(confirmed, OrderStatus.CONFIRMED);
+            Money confirmedTotal = confirmed.getSubtotal();
+            Money untouchedTotal = untouched.getSubtotal();
+            Money oldPrice = catalog.current().priceOf("p-cheese");
+
+            PriceChangeReport report = new PricePropagationService(service)
+                .updateIngredientPrices(Map.of(cheese, 1.40));
+
+            Money newPrice = catalog.current().priceOf("p-cheese");
+            assertTrue(newPrice.isGreaterThan(oldPrice));
+            assertEquals(List.of("p-cheese"), report.getMenuItemIds());
+            assertEquals(1, report.getRepricedOrders().size());
+            assertEquals(affected.getId(), report.getRepricedOrders().get(0).getOrderId());
+            assertEquals(newPrice.multiply(2).add(catalog.current().priceOf("p-basil")), affected.getSubtotal());
+            assertEquals(untouchedTotal, untouched.getSubtotal());
+            assertEquals(confirmedTotal, confirmed.getSubtotal());
+        } finally {
+            catalog.close();
+        }
+    }
+
+    @Test
+    void draftIndexFollowsLinesAndStatus() throws Exception {
+        Ingredient cheese = IngredientRegistry.intern("Test " + UUID.randomUUID(), 1.00);
+        Pizza cheesy = pizza("p-" + UUID.randomUUID(), cheese);
+        BitSet ingredients = new BitSet();
+        ingredients.set(cheese.getOrdinal());
+        try (OrderService service = new OrderService()) {
+            Order first = service.createOrder(customer);
+            Order second = service.createOrder(customer);
+            service.addItemToOrder(first, cheesy, 1);
+            service.addItemToOrder(second, cheesy, 1);
+            assertEquals(2, service.findDraftLinesByIngredients(ingredients).size());
+
+            first.removeItem(cheesy);
+            assertEquals(List.of(second), List.copyOf(service.findDraftLinesByIngredients(ingredients).keySet()));
+
+            service.confirmOrder(second);
+            assertTrue(service.findDraftLinesByIngredients(ingredients).isEmpty());
+            assertFalse(service.findDraftLinesByIngredients(ingredients).containsKey(second));
+        }
+    }
+
+    private static Pizza pizza(String id, Ingredient ingredient) {
+        Pizza pizza = new Pizza(id, "Pizza " + id, PizzaSize.MEDIUM, DoughType.THIN, Money.of(8.00));
+        pizza.addTopping(new Topping(ingredient, Money.of(1.00)));
+        return pizza;
+    }
+}
@@ -0,0 +1,133 @@
+package org.pizzeria.service;
+
+import org.junit.jupiter.api.Test;
+import org.pizzeria.domain.common.Email;
+import org.pizzeria.domain.common.Money;
+import org.pizzeria.domain.common.PhoneNumber;
+import org.pizzeria.domain.menu.Drink;
+import org.pizzeria.domain.menu.MenuItem;
+import org.pizzeria.domain.order.Order;
+import org.pizzeria.domain.user.Customer;
+import org.pizzeria.service.RecommendationService.Companion;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Затухание весов совместных покупок, нормировка матрицы
+ * и удаление затухших и убранных из меню позиций.
+ */
+class RecommendationServiceTest {
+    private static final double EPSILON = 1e-6;
+
+    private final Customer customer = new Customer("c1", "Ann",
+        new Email("ann@example.com"), new PhoneNumber("+375291234567"), "hash");
+    private final Drink a = new Drink("a", "Cola", 500, Money.of(2.50));
+    private final Drink b = new Drink("b", "Water", 500, Money.of(1.25));
+    private final Drink c = new Drink("c", "Juice", 300, Money.of(3.00));
+    private final Drink d = new Drink("d", "Tea", 300, Money.of(1.50));
+
+    @Test
+    void newerOrdersWeighMoreThanOlderOnes() {
+        // Период полураспада - один заказ: каждый следующий заказ весит вдвое больше
+        RecommendationService service = new RecommendationService(1);
+        service.recordOrder(order(a, b));
+        service.recordOrder(order(a, c));
+
+        List<Companion> companions = service.getCompanions(a, 5);
+
+        assertEquals(2, companions.size());
+        assertEquals(c, companions.get(0).getItem());
+        assertEquals(2.0 / 3, companions.get(0).getScore(), EPSILON);
+        assertEquals(b, companions.get(1).getItem());
+        assertEquals(1.0 / 3, companions.get(1).getScore(), EPSILON);
+    }
+
+    @Test
+    void renormalizationKeepsScores() {
+        RecommendationService service = new RecommendationService(1);
+        // 40 удвоений - вес нового заказа несколько раз превышает порог нормировки
+        for (int i = 0; i < 40; i++) {
+            service.recordOrder(order(a, b));
+        }
+        service.recordOrder(order(a, c));
+
+        List<Companion> companions = service.getCompanions(a, 5);
+
+        // Вес последнего заказа равен сумме всех предыдущих
+        assertEquals(c, companions.get(0).getItem());
+        assertEquals(0.5, companions.get(0).getScore(), EPSILON);
+        assertEquals(b, companions.get(1).getItem());
+        assertEquals(0.5, companions.get(1).getScore(), EPSILON);
+        assertEquals(1.0, service.getCompanions(b, 1).get(0).getScore(), EPSILON);
+    }
+
+    @Test
+    void decayedItemsArePrunedCompletely() {
+        RecommendationService service = new RecommendationService(1);
+        service.recordOrder(order(a, d));
+        for (int i = 0; i < 40; i++) {
+            service.recordOrder(order(a, b));
+        }
+
+        assertEquals(2, service.getTrackedItemCount());
+        assertTrue(service.getCompanions(d, 5).isEmpty());
+        assertEquals(List.of(b), items(service.getCompanions(a, 5)));
+
+        // Затухшая позиция снова учитывается с нуля
+        service.recordOrder(order(d, b));
+        assertEquals(3, service.getTrackedItemCount());
+        assertEquals(1.0, service.getCompanions(d, 5).get(0).getScore(), EPSILON);
+    }
+
+    @Test
+    void removedItemDisappearsFromRowsAndColumns() {
+        RecommendationService service = new RecommendationService();
+        service.recordOrder(order(a, b, c));
+
+        assertTrue(service.removeItem(b));
+        assertFalse(service.removeItem(b));
+
+        assertEquals(2, service.getTrackedItemCount());
+        assertTrue(service.getCompanions(b, 5).isEmpty());
+        assertEquals(List.of(c), items(service.getCompanions(a, 5)));
+        assertEquals(List.of(a), items(service.getCompanions(c, 5)));
+
+        // Номера позиций уплотнены: новая позиция не путается со старыми
+        service.recordOrder(order(c, d));
+        assertEquals(List.of(c), items(service.getCompanions(d, 5)));
+        assertEquals(List.of(c), items(service.getCompanions(a, 5)));
+    }
+
+    @Test
+    void retainItemsDropsEverythingOffTheMenu() {
+        RecommendationService service = new RecommendationService();
+        service.recordOrder(order(a, b));
+        service.recordOrder(order(c, d));
+        service.recordOrder(order(a, c));
+
+        assertEquals(2, service.retainItems(List.of(a, c)));
+
+        assertEquals(2, service.getTrackedItemCount());
+        assertEquals(List.of(c), items(service.getCompanions(a, 5)));
+        assertEquals(List.of(a), items(service.getCompanions(c, 5)));
+        assertTrue(service.getCompanions(b, 5).isEmpty());
+        assertTrue(service.getCompanions(d, 5).isEmpty());
+    }
+
+    private Order order(MenuItem... items) {
+        Order order = new Order(customer);
+        for (MenuItem item : items) {
+            order.addItem(item, 1);
+        }
+        return order;
+    }
+
+    private static List<MenuItem> items(List<Companion> companions) {
+        return companions.stream().map(Companion::getItem).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,152 @@
+package org.pizzeria.service;
+
+import org.junit.jupiter.api.Test;
+import org.pizzeria.domain.menu.Ingredient;
+import org.pizzeria.domain.menu.IngredientRegistry;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Пересечения порога низкого запаса копятся до конца окна и рассылаются
+ * одним пакетом, в котором каждый ингредиент встречается один раз.
+ */
+class RestockAlertServiceTest {
+    private static final Instant NOW = Instant.parse("2026-03-02T12:00:00Z");
+
+    private final Clock clock = Clock.fixed(NOW, ZoneOffset.UTC);
+
+    @Test
+    void crossingsAreBatchedOncePerIngredient() {
+        RestockAlertService service = new RestockAlertService(Duration.ofHours(1), clock);
+        List<RestockEvent> events = new CopyOnWriteArrayList<>();
+        service.addListener(events::add);
+        Ingredient cheese = newIngredient(20, 10);
+        Ingredient basil = newIngredient(20, 5);
+        service.start();
+
+        cheese.useStock(12); // 8 - порог пройден
+        cheese.useStock(1);  // ниже порога без пересечения - заявка не повторяется
+        cheese.addStock(10); // 17 - снова выше порога
+        cheese.useStock(14); // 3 - второе пересечение, остаток меньше
+        basil.useStock(15);
+
+        assertEquals(2, service.getPendingCount());
+        assertEquals(2, service.flush());
+        assertEquals(0, service.flush());
+        service.close();
+
+        assertEquals(1, events.size());
+        RestockEvent event = events.get(0);
+        assertEquals(NOW, event.getCreatedAt());
+        assertEquals(2, event.size());
+        RestockEvent.Request cheeseRequest = requestFor(event, cheese);
+        assertEquals(3, cheeseRequest.getRemaining());
+        assertEquals(10, cheeseRequest.getThreshold());
+        assertEquals(5, requestFor(event, basil).getRemaining());
+    }
+
+    @Test
+    void batchKeepsLowestRemainingStock() {
+        RestockAlertService service = new RestockAlertService(Duration.ofHours(1), clock);
+        List<RestockEvent> events = new CopyOnWriteArrayList<>();
+        service.addListener(events::add);
+        Ingredient cheese = newIngredient(0, 10);
+
+        service.lowStock(cheese, 7, 10);
+        service.lowStock(cheese, 2, 10);
+        service.lowStock(cheese, 9, 10);
+        service.flush();
+
+        assertEquals(2, requestFor(events.get(0), cheese).getRemaining());
+    }
+
+    @Test
+    void failingListenerDoesNotBlockOthers() {
+        RestockAlertService service = new RestockAlertService(Duration.ofHours(1), clock);
+        List<RestockEvent> events = new CopyOnWriteArrayList<>();
+        service.addListener(event -> {
+            throw new IllegalStateException("listener failure");
+        });
+        service.addListener(events::add);
+
+        service.lowStock(newIngredient(0, 1), 0, 1);
+        service.flush();
+
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    void startedServiceListensToLedgerUntilClosed() {
+        RestockAlertService service = new RestockAlertService(Duration.ofHours(1), clock);
+        List<RestockEvent> events = new CopyOnWriteArrayList<>();
+        service.addListener(events::add);
+        Ingredient cheese = newIngredient(20, 10);
+
+        service.start();
+        assertThrows(IllegalStateException.class, service::start);
+        cheese.useStock(15);
+        assertEquals(1, service.getPendingCount());
+
+        // Закрытие рассылает то, что накопилось, и отписывается от склада
+        service.close();
+        assertEquals(1, events.size());
+        assertSame(cheese, events.get(0).getRequests().get(0).getIngredient());
+
+        cheese.addStock(20);
+        cheese.useStock(20);
+        assertEquals(0, service.getPendingCount());
+    }
+
+    @Test
+    void windowTimerSendsPendingRequests() throws Exception {
+        RestockAlertService service = new RestockAlertService(Duration.ofMillis(50), clock);
+        CountDownLatch delivered = new CountDownLatch(1);
+        Ingredient cheese = newIngredient(20, 10);
+        service.addListener(event -> {
+            for (RestockEvent.Request request : event.getRequests()) {
+                if (request.getIngredient() == cheese) {
+                    delivered.countDown();
+                }
+            }
+        });
+        service.start();
+        try {
+            cheese.useStock(15);
+
+            assertTrue(delivered.await(5, TimeUnit.SECONDS));
+            assertEquals(0, service.getPendingCount());
+        } finally {
+            service.close();
+        }
+    }
+
+    private static RestockEvent.Request requestFor(RestockEvent event, Ingredient ingredient) {
+        for (RestockEvent.Request request : event.getRequests()) {
+            if (request.getIngredient() == ingredient) {
+                return request;
+            }
+        }
+        throw new AssertionError("No request for " + ingredient.getName());
+    }
+
+    private static Ingredient newIngredient(int stock, int threshold) {
+        Ingredient ingredient = IngredientRegistry.intern("Test " + UUID.randomUUID(), 1.0);
+        ingredient.useStock(ingredient.getStockQuantity());
+        ingredient.setLowStockThreshold(threshold);
+        ingredient.addStock(stock);
+        return ingredient;
+    }
+}